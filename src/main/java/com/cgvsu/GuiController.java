@@ -4,26 +4,30 @@ import com.cgvsu.math.Matrix4f;
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.Model;
-import com.cgvsu.model.Polygon;
+import com.cgvsu.model.RayHit;
 import com.cgvsu.model.SceneObject;
 import com.cgvsu.objreader.ObjReader;
 import com.cgvsu.objreader.ObjReaderException;
 import com.cgvsu.objwriter.ObjWriter;
 import com.cgvsu.render_engine.Camera;
 import com.cgvsu.render_engine.GraphicConveyor;
+import com.cgvsu.render_engine.ProjectedVertices;
+import com.cgvsu.render_engine.RenderContext;
 import com.cgvsu.render_engine.RenderEngine;
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
+import com.cgvsu.render_engine.RenderScheduler;
+import com.cgvsu.render_engine.ScreenGrid;
 import javafx.animation.PauseTransition;
-import javafx.animation.Timeline;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
@@ -38,6 +42,10 @@ public class GuiController {
     private static final float TRANSLATION_STEP = 0.5f;
     private static final float ROTATION_ANGLE = (float) Math.toRadians(5);
     private static final float SCALE_FACTOR = 1.1f;
+    // Вершины, отличающиеся меньше чем на это значение, при загрузке сливаются
+    private static final float WELD_TOLERANCE = 1e-6f;
+    // Доля осиротевших вершин после удалений, при которой модель сжимается
+    private static final float AUTO_COMPACT_THRESHOLD = 0.25f;
 
     @FXML private AnchorPane anchorPane;
     @FXML private Canvas canvas;
@@ -51,7 +59,8 @@ public class GuiController {
     private final List<SceneObject> sceneObjects = new ArrayList<>();
     private int selectedModelIndex = -1;
     private Camera camera;
-    private Timeline timeline;
+    private RenderScheduler renderScheduler;
+    private final RenderContext renderContext = new RenderContext();
     private boolean isDarkTheme = true;
 
     // Режимы редактирования
@@ -60,6 +69,16 @@ public class GuiController {
     private int selectedVertexIndex = -1;
     private int selectedPolygonIndex = -1;
 
+    // Выделение рамкой (перетаскивание) или лассо (перетаскивание с Alt); Shift добавляет
+    // к уже выделенному. Сетка строится один раз в начале перетаскивания
+    private final ScreenGrid selectionGrid = new ScreenGrid();
+    private boolean selecting;
+    private boolean lassoSelection;
+    private float dragStartX, dragStartY, dragX, dragY;
+    private float[] lassoPoints = new float[256];
+    private int lassoPointCount;
+    private BitSet baseSelection;
+
     // Хранит оригинальные модели для возможности отката изменений
     private final Map<SceneObject, Model> originalModels = new HashMap<>();
 
@@ -82,38 +101,51 @@ public class GuiController {
         anchorPane.widthProperty().addListener((ov, old, nv) -> {
             canvas.setWidth(nv.doubleValue());
             updateCameraAspectRatio();
+            requestRender();
         });
 
         anchorPane.heightProperty().addListener((ov, old, nv) -> {
             canvas.setHeight(nv.doubleValue());
             updateCameraAspectRatio();
+            requestRender();
         });
 
-        // Основной цикл рендера ~60 fps
-        timeline = new Timeline();
-        timeline.setCycleCount(Animation.INDEFINITE);
-        KeyFrame frame = new KeyFrame(Duration.millis(16), e -> {
-            double w = canvas.getWidth();
-            double h = canvas.getHeight();
-            canvas.getGraphicsContext2D().clearRect(0, 0, w, h);
-            RenderEngine.render(
-                    canvas.getGraphicsContext2D(),
-                    camera,
-                    sceneObjects,
-                    (int) w, (int) h,
-                    selectedModelIndex,
-                    selectedVertexIndex,
-                    selectedPolygonIndex
-            );
-        });
-        timeline.getKeyFrames().add(frame);
-        timeline.play();
+        // Кадр рисуется только после изменений сцены, камеры или выбора
+        renderScheduler = new RenderScheduler(this::renderFrame);
+        renderScheduler.requestRender();
 
         // Выбор вершин/полигонов по клику
         canvas.setOnMouseClicked(this::handleMouseClick);
+        canvas.setOnMousePressed(this::handleSelectionStart);
+        canvas.setOnMouseDragged(this::handleSelectionDrag);
+        canvas.setOnMouseReleased(this::handleSelectionEnd);
         notificationContainer.setVisible(false);
     }
 
+    private void renderFrame() {
+        double w = canvas.getWidth();
+        double h = canvas.getHeight();
+        canvas.getGraphicsContext2D().clearRect(0, 0, w, h);
+        RenderEngine.render(
+                canvas.getGraphicsContext2D(),
+                camera,
+                sceneObjects,
+                (int) w, (int) h,
+                selectedModelIndex,
+                selectedVertexIndex,
+                selectedPolygonIndex,
+                renderContext
+        );
+        if (selecting) {
+            drawSelectionOverlay(canvas.getGraphicsContext2D());
+        }
+    }
+
+    // Помечает кадр устаревшим; несколько вызовов подряд дают одну перерисовку
+    private void requestRender() {
+        renderScheduler.requestRender();
+    }
+
     // Метод для обновления aspect ratio камеры
     private void updateCameraAspectRatio() {
         if (canvas.getHeight() > 0) {
@@ -124,101 +156,225 @@ public class GuiController {
     // ---------------------------------------------------------------
     //                   Выбор по клику мыши
     // ---------------------------------------------------------------
+    // Если последний кадр записал буфер идентификаторов, выбор — одна выборка пикселя;
+    // иначе луч из камеры через пиксель пересекается с BVH каждой модели
     private void handleMouseClick(MouseEvent event) {
-        double mx = event.getX();
-        double my = event.getY();
         int w = (int) canvas.getWidth();
         int h = (int) canvas.getHeight();
+        if (w <= 0 || h <= 0 || !event.isStillSincePress()) return;
+
+        long pickStart = System.nanoTime();
+        // Устаревший кадр может не совпадать со сценой: тогда только луч
+        int[] pick = null;
+        if (renderContext.hasPickIds() && !renderScheduler.isDirty()) {
+            pick = pickFromIdBuffer((int) event.getX(), (int) event.getY());
+        }
+        if (pick == null) {
+            pick = pickByRay((float) event.getX(), (float) event.getY(), w, h);
+        }
+        renderContext.getStats().recordPicking(System.nanoTime() - pickStart);
+        if (pick == null) return;
+
+        selectedModelIndex = pick[0];
+        selectedVertexIndex = -1;
+        selectedPolygonIndex = -1;
+        renderContext.clearSelection();
+        if (editMode == EditMode.VERTEX) {
+            selectedVertexIndex = pick[2];
+        } else if (editMode == EditMode.POLYGON) {
+            selectedPolygonIndex = pick[1];
+        }
+        requestRender();
+        showNotification("Selected model: " + sceneObjects.get(selectedModelIndex).getName(), "info");
+    }
+
+    // {модель, полигон, вершина} под пикселем по буферу идентификаторов или null.
+    // Буфер уже учёл глубину, поэтому это ближайшая видимая поверхность; в каркасе
+    // попадание бывает только на ребро, промах между рёбрами уточняется лучом
+    private int[] pickFromIdBuffer(int x, int y) {
+        int modelIndex = renderContext.getPickedObject(x, y);
+        if (modelIndex < 0 || modelIndex >= sceneObjects.size()) {
+            return null;
+        }
+        SceneObject so = sceneObjects.get(modelIndex);
+        Model model = so.getModel();
+        int polygon = renderContext.getPickedPolygon(x, y);
+        if (polygon >= model.getPolygonCount()) {
+            return null;
+        }
 
-        // Шаг 1: Пытаемся выбрать модель по клику
-        int clickedModelIndex = findClosestModel(mx, my, w, h);
-        if (clickedModelIndex >= 0) {
-            selectedModelIndex = clickedModelIndex;
-            selectedVertexIndex = -1;
-            selectedPolygonIndex = -1;
-
-            if (editMode != EditMode.NONE) {
-                Model model = sceneObjects.get(selectedModelIndex).getModel();
-                Matrix4f mvp = getMVPForSelectedModel();
-
-                if (editMode == EditMode.VERTEX) {
-                    selectedVertexIndex = findClosestVertex(model, mvp, mx, my, w, h);
-                } else if (editMode == EditMode.POLYGON) {
-                    selectedPolygonIndex = findClosestPolygon(model, mvp, mx, my, w, h);
-                }
+        // Вершина — ближайшая к курсору на экране вершина найденного полигона
+        float[] screen = renderContext.getProjection(so).getData();
+        int[] indices = model.getPolygonVertexIndices();
+        int[] offsets = model.getPolygonOffsets();
+        int vertex = -1;
+        float best = Float.POSITIVE_INFINITY;
+        for (int k = offsets[polygon]; k < offsets[polygon + 1]; k++) {
+            int o = indices[k] * ProjectedVertices.STRIDE;
+            if (o + 1 >= screen.length || screen[o + 2] <= 0) continue;
+            float dx = screen[o] - x;
+            float dy = screen[o + 1] - y;
+            if (dx * dx + dy * dy < best) {
+                best = dx * dx + dy * dy;
+                vertex = indices[k];
             }
-            showNotification("Selected model: " + sceneObjects.get(selectedModelIndex).getName(), "info");
         }
+        return new int[]{modelIndex, polygon, vertex};
     }
 
-    private int findClosestModel(double mx, double my, int w, int h) {
-        double globalMinDist = Double.MAX_VALUE;
-        int bestIndex = -1;
+    // {модель, полигон, вершина} ближайшего попадания луча или null
+    private int[] pickByRay(float x, float y, int w, int h) {
+        // Луч от ближней до дальней плоскости: t от 0 до 1 покрывает видимую глубину
+        Vector2f pixel = new Vector2f(x, y);
+        Matrix4f view = camera.getViewMatrix();
+        Matrix4f projection = camera.getProjectionMatrix();
+        Vector3f origin = GraphicConveyor.screenToWorld(pixel, camera.getNearPlane(), w, h, view, projection);
+        Vector3f direction = GraphicConveyor.screenToWorld(pixel, camera.getFarPlane(), w, h, view, projection)
+                .subtract(origin);
 
+        int hitModelIndex = -1;
+        RayHit bestHit = null;
         for (int i = 0; i < sceneObjects.size(); i++) {
-            SceneObject so = sceneObjects.get(i);
-            Model model = so.getModel();
-            Matrix4f mvp = getMVPForModel(i);
-
-            double modelMinDist = Double.MAX_VALUE;
-            for (Vector3f vert : model.getVertices()) {
-                Vector2f p = GraphicConveyor.vertexToPoint(
-                        GraphicConveyor.multiplyMatrix4ByVector3(mvp, vert), w, h
-                );
-                double dist = Math.hypot(p.x - mx, p.y - my);
-                if (dist < modelMinDist) modelMinDist = dist;
+            Matrix4f inverse;
+            try {
+                inverse = sceneObjects.get(i).getInverseTransform();
+            } catch (ArithmeticException e) {
+                continue; // вырожденный масштаб: модель сплющена и попасть в неё нельзя
             }
-            if (modelMinDist < globalMinDist) {
-                globalMinDist = modelMinDist;
-                bestIndex = i;
+            // Матрица объекта аффинная, поэтому направление переводится одной линейной частью;
+            // параметр t попадания при этом тот же, что у мирового луча
+            Vector3f modelOrigin = GraphicConveyor.multiplyMatrix4ByVector3(inverse, origin);
+            Vector3f modelDirection = GraphicConveyor.multiplyMatrix4ByDirection(inverse, direction);
+            RayHit hit = sceneObjects.get(i).getModel().raycast(modelOrigin, modelDirection);
+            if (hit != null && hit.getDistance() <= 1
+                    && (bestHit == null || hit.getDistance() < bestHit.getDistance())) {
+                bestHit = hit;
+                hitModelIndex = i;
             }
         }
-        return (globalMinDist < 120) ? bestIndex : -1;
+        if (bestHit == null) {
+            return null;
+        }
+        return new int[]{hitModelIndex, bestHit.getPolygonIndex(), bestHit.getVertexIndex()};
     }
 
-    private int findClosestVertex(Model model, Matrix4f mvp, double mx, double my, int w, int h) {
-        double minDist = 12.0;
-        int best = -1;
-        for (int i = 0; i < model.getVertices().size(); i++) {
-            Vector3f v = model.getVertices().get(i);
-            Vector2f p = GraphicConveyor.vertexToPoint(
-                    GraphicConveyor.multiplyMatrix4ByVector3(mvp, v), w, h
-            );
-            double dist = Math.hypot(p.x - mx, p.y - my);
-            if (dist < minDist) {
-                minDist = dist;
-                best = i;
-            }
+    // ---------------------------------------------------------------
+    //               Выделение рамкой и лассо
+    // ---------------------------------------------------------------
+    private void handleSelectionStart(MouseEvent event) {
+        selecting = false;
+        if (event.getButton() != MouseButton.PRIMARY || editMode == EditMode.NONE || selectedModelIndex < 0) {
+            return;
         }
-        return best;
-    }
-
-    private int findClosestPolygon(Model model, Matrix4f mvp, double mx, double my, int w, int h) {
-        double minDist = 40.0;
-        int best = -1;
-        for (int i = 0; i < model.getPolygons().size(); i++) {
-            Polygon poly = model.getPolygons().get(i);
-            double cx = 0, cy = 0;
-            int count = 0;
-            for (int idx : poly.getVertexIndices()) {
-                Vector3f v = model.getVertices().get(idx);
-                Vector2f p = GraphicConveyor.vertexToPoint(
-                        GraphicConveyor.multiplyMatrix4ByVector3(mvp, v), w, h
-                );
-                cx += p.x;
-                cy += p.y;
-                count++;
-            }
-            if (count == 0) continue;
-            cx /= count;
-            cy /= count;
-            double dist = Math.hypot(cx - mx, cy - my);
-            if (dist < minDist) {
-                minDist = dist;
-                best = i;
+        int w = (int) canvas.getWidth();
+        int h = (int) canvas.getHeight();
+        if (w <= 0 || h <= 0) return;
+
+        // Сетка строится по проекциям последнего кадра, поэтому кадр должен быть свежим
+        if (renderScheduler.isDirty()) {
+            renderFrame();
+        }
+        SceneObject so = sceneObjects.get(selectedModelIndex);
+        Model model = so.getModel();
+        ProjectedVertices projection = renderContext.getProjection(so);
+        Matrix4f mvp = so.getMVP(camera);
+        if (RenderEngine.isCulled(model, mvp, camera) || projection.size() != model.getVertexCount()) {
+            return; // модели нет на экране, выделять нечего
+        }
+        selectionGrid.build(projection, w, h, camera.getNearPlane());
+
+        selecting = true;
+        lassoSelection = event.isAltDown();
+        dragStartX = dragX = (float) event.getX();
+        dragStartY = dragY = (float) event.getY();
+        lassoPointCount = 0;
+        addLassoPoint(dragX, dragY);
+        if (event.isShiftDown()) {
+            baseSelection = (BitSet) (editMode == EditMode.VERTEX
+                    ? renderContext.getSelectedVertices() : renderContext.getSelectedPolygons()).clone();
+        } else {
+            baseSelection = new BitSet();
+        }
+    }
+
+    private void handleSelectionDrag(MouseEvent event) {
+        if (!selecting) return;
+        dragX = (float) event.getX();
+        dragY = (float) event.getY();
+        if (lassoSelection) {
+            // Близкие точки не добавляют контуру точности, только рёбер
+            float dx = dragX - lassoPoints[2 * lassoPointCount - 2];
+            float dy = dragY - lassoPoints[2 * lassoPointCount - 1];
+            if (dx * dx + dy * dy < 4) return;
+            addLassoPoint(dragX, dragY);
+        }
+        applySelection();
+        requestRender();
+    }
+
+    private void handleSelectionEnd(MouseEvent event) {
+        if (!selecting) return;
+        selecting = false;
+        if (event.isStillSincePress()) return; // это клик, его обработает handleMouseClick
+        applySelection();
+        requestRender();
+        if (editMode == EditMode.VERTEX) {
+            showNotification("Selected vertices: " + renderContext.getSelectedVertices().cardinality(), "info");
+        } else {
+            showNotification("Selected polygons: " + renderContext.getSelectedPolygons().cardinality(), "info");
+        }
+    }
+
+    private void addLassoPoint(float x, float y) {
+        if (2 * lassoPointCount + 2 > lassoPoints.length) {
+            lassoPoints = Arrays.copyOf(lassoPoints, lassoPoints.length * 2);
+        }
+        lassoPoints[2 * lassoPointCount] = x;
+        lassoPoints[2 * lassoPointCount + 1] = y;
+        lassoPointCount++;
+    }
+
+    // Пересчитывает выделение по текущей рамке или контуру лассо
+    private void applySelection() {
+        Model model = sceneObjects.get(selectedModelIndex).getModel();
+        BitSet vertices = new BitSet(model.getVertexCount());
+        if (lassoSelection) {
+            selectionGrid.queryLasso(lassoPoints, lassoPointCount, vertices);
+        } else {
+            selectionGrid.queryRect(dragStartX, dragStartY, dragX, dragY, vertices);
+        }
+
+        selectedVertexIndex = -1;
+        selectedPolygonIndex = -1;
+        renderContext.clearSelection();
+        if (editMode == EditMode.VERTEX) {
+            renderContext.getSelectedVertices().or(baseSelection);
+            renderContext.getSelectedVertices().or(vertices);
+        } else {
+            // Полигон выделен, если внутри все его вершины
+            renderContext.getSelectedPolygons().or(baseSelection);
+            renderContext.getSelectedPolygons().or(model.getPolygonsWithin(vertices));
+        }
+    }
+
+    private void drawSelectionOverlay(GraphicsContext gc) {
+        gc.save();
+        gc.setStroke(Color.DODGERBLUE);
+        gc.setLineWidth(1.0);
+        gc.setLineDashes(4, 4);
+        if (lassoSelection) {
+            gc.beginPath();
+            gc.moveTo(lassoPoints[0], lassoPoints[1]);
+            for (int k = 1; k < lassoPointCount; k++) {
+                gc.lineTo(lassoPoints[2 * k], lassoPoints[2 * k + 1]);
             }
+            gc.closePath();
+            gc.stroke();
+        } else {
+            gc.strokeRect(Math.min(dragStartX, dragX), Math.min(dragStartY, dragY),
+                    Math.abs(dragX - dragStartX), Math.abs(dragY - dragStartY));
         }
-        return best;
+        gc.restore();
     }
 
     // ---------------------------------------------------------------
@@ -229,13 +385,28 @@ public class GuiController {
 
         if (code == KeyCode.DELETE || code == KeyCode.BACK_SPACE) {
             Model model = sceneObjects.get(selectedModelIndex).getModel();
-            if (editMode == EditMode.VERTEX && selectedVertexIndex >= 0) {
+            BitSet vertices = renderContext.getSelectedVertices().get(0, model.getVertexCount());
+            BitSet polygons = renderContext.getSelectedPolygons().get(0, model.getPolygonCount());
+            // Всё выделение удаляется одной правкой модели
+            if (editMode == EditMode.VERTEX && !vertices.isEmpty()) {
+                model.removeVertices(vertices);
+                renderContext.clearSelection();
+                requestRender();
+                showNotification("Vertices deleted: " + vertices.cardinality(), "success");
+            } else if (editMode == EditMode.POLYGON && !polygons.isEmpty()) {
+                model.removePolygons(polygons);
+                renderContext.clearSelection();
+                requestRender();
+                showNotification("Polygons deleted: " + polygons.cardinality(), "success");
+            } else if (editMode == EditMode.VERTEX && selectedVertexIndex >= 0) {
                 model.removeVertex(selectedVertexIndex);
                 selectedVertexIndex = -1;
+                requestRender();
                 showNotification("Vertex deleted successfully", "success");
             } else if (editMode == EditMode.POLYGON && selectedPolygonIndex >= 0) {
                 model.removePolygon(selectedPolygonIndex);
                 selectedPolygonIndex = -1;
+                requestRender();
                 showNotification("Polygon deleted successfully", "success");
             }
         }
@@ -248,18 +419,24 @@ public class GuiController {
         editMode = EditMode.NONE;
         selectedVertexIndex = -1;
         selectedPolygonIndex = -1;
+        renderContext.clearSelection();
+        requestRender();
         showNotification("Object selection mode activated", "info");
     }
 
     @FXML private void setEditModeVertex() {
         editMode = EditMode.VERTEX;
         selectedPolygonIndex = -1;
+        renderContext.getSelectedPolygons().clear();
+        requestRender();
         showNotification("Vertex selection mode activated", "info");
     }
 
     @FXML private void setEditModePolygon() {
         editMode = EditMode.POLYGON;
         selectedVertexIndex = -1;
+        renderContext.getSelectedVertices().clear();
+        requestRender();
         showNotification("Polygon selection mode activated", "info");
     }
 
@@ -275,10 +452,18 @@ public class GuiController {
         try {
             String content = Files.readString(file.toPath());
             Model model = ObjReader.read(content);
+            int loadedVertices = model.getVertexCount();
+            long savedBytes = model.weld(WELD_TOLERANCE, true);
+            model.setAutoCompactThreshold(AUTO_COMPACT_THRESHOLD);
             SceneObject obj = new SceneObject(model, file.getName());
             sceneObjects.add(obj);
             selectedModelIndex = sceneObjects.size() - 1;
-            showNotification("Model loaded: " + file.getName(), "success");
+            requestRender();
+            int welded = loadedVertices - model.getVertexCount();
+            showNotification(welded == 0
+                    ? "Model loaded: " + file.getName()
+                    : String.format("Model loaded: %s (%d duplicate vertices welded, %.1f KB saved)",
+                            file.getName(), welded, savedBytes / 1024.0), "success");
         } catch (IOException | ObjReaderException e) {
             showError("Ошибка загрузки модели", e.getMessage());
         }
@@ -289,21 +474,27 @@ public class GuiController {
     // ---------------------------------------------------------------
     @FXML public void handleCameraForward(ActionEvent e) {
         camera.movePosition(new Vector3f(0, 0, -TRANSLATION_STEP));
+        requestRender();
     }
     @FXML public void handleCameraBackward(ActionEvent e) {
         camera.movePosition(new Vector3f(0, 0, TRANSLATION_STEP));
+        requestRender();
     }
     @FXML public void handleCameraLeft(ActionEvent e) {
         camera.movePosition(new Vector3f(-TRANSLATION_STEP, 0, 0));
+        requestRender();
     }
     @FXML public void handleCameraRight(ActionEvent e) {
         camera.movePosition(new Vector3f(TRANSLATION_STEP, 0, 0));
+        requestRender();
     }
     @FXML public void handleCameraUp(ActionEvent e) {
         camera.movePosition(new Vector3f(0, TRANSLATION_STEP, 0));
+        requestRender();
     }
     @FXML public void handleCameraDown(ActionEvent e) {
         camera.movePosition(new Vector3f(0, -TRANSLATION_STEP, 0));
+        requestRender();
     }
 
     @FXML public void resetCamera() {
@@ -315,29 +506,13 @@ public class GuiController {
                 0.1F,
                 100.0F
         );
+        requestRender();
         showNotification("Camera reset to default position", "info");
     }
 
     // ---------------------------------------------------------------
     //                     Вспомогательные методы
     // ---------------------------------------------------------------
-    private Matrix4f getMVPForModel(int modelIndex) {
-        if (modelIndex < 0 || modelIndex >= sceneObjects.size()) return Matrix4f.identity();
-
-        SceneObject so = sceneObjects.get(modelIndex);
-        Matrix4f modelMatrix = so.getTransform();
-        Matrix4f viewMatrix = camera.getViewMatrix();
-        Matrix4f projMatrix = camera.getProjectionMatrix();
-
-        // Порядок умножения матриц: projection * view * model
-        return projMatrix.multiply(viewMatrix).multiply(modelMatrix);
-    }
-
-    private Matrix4f getMVPForSelectedModel() {
-        if (selectedModelIndex < 0) return Matrix4f.identity();
-        return getMVPForModel(selectedModelIndex);
-    }
-
     private void showError(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle(title);
@@ -362,11 +537,14 @@ public class GuiController {
         int size = sceneObjects.size();
         if (size == 0) {
             selectedModelIndex = -1;
+            requestRender();
             return;
         }
         selectedModelIndex = (index + size) % size;
         selectedVertexIndex = -1;
         selectedPolygonIndex = -1;
+        renderContext.clearSelection();
+        requestRender();
         showNotification("Selected model: " + sceneObjects.get(selectedModelIndex).getName(), "info");
     }
 
@@ -383,6 +561,54 @@ public class GuiController {
         }
     }
 
+    @FXML private void toggleRenderBackend() {
+        requestRender();
+        if (renderContext.getBackend() == RenderContext.Backend.CANVAS) {
+            renderContext.setBackend(RenderContext.Backend.FRAMEBUFFER);
+            showNotification("Software rasterizer enabled", "info");
+        } else {
+            renderContext.setBackend(RenderContext.Backend.CANVAS);
+            showNotification("Canvas renderer enabled", "info");
+        }
+    }
+
+    @FXML private void toggleRenderMode() {
+        requestRender();
+        if (renderContext.getMode() == RenderContext.Mode.WIREFRAME) {
+            renderContext.setMode(RenderContext.Mode.SOLID);
+            showNotification("Solid mode enabled", "info");
+        } else {
+            renderContext.setMode(RenderContext.Mode.WIREFRAME);
+            showNotification("Wireframe mode enabled", "info");
+        }
+    }
+
+    @FXML private void toggleBackFaceCulling() {
+        renderContext.setBackFaceCulling(!renderContext.isBackFaceCulling());
+        requestRender();
+        showNotification(renderContext.isBackFaceCulling()
+                ? "Back-face culling enabled" : "Back-face culling disabled", "info");
+    }
+
+    @FXML private void toggleKeepSelectedPolygonVisible() {
+        renderContext.setKeepSelectedPolygonVisible(!renderContext.isKeepSelectedPolygonVisible());
+        requestRender();
+        showNotification(renderContext.isKeepSelectedPolygonVisible()
+                ? "Selected polygon always visible" : "Selected polygon follows culling", "info");
+    }
+
+    @FXML private void toggleIdBufferPicking() {
+        renderContext.setIdBufferEnabled(!renderContext.isIdBufferEnabled());
+        requestRender();
+        showNotification(renderContext.isIdBufferEnabled()
+                ? "ID-buffer picking enabled" : "ID-buffer picking disabled", "info");
+    }
+
+    @FXML private void toggleHud() {
+        renderContext.setHudVisible(!renderContext.isHudVisible());
+        requestRender();
+    }
+
     // ---------------------------------------------------------------
     //                     Система уведомлений
     // ---------------------------------------------------------------
@@ -414,6 +640,8 @@ public class GuiController {
         selectedModelIndex = -1;
         selectedVertexIndex = -1;
         selectedPolygonIndex = -1;
+        renderContext.clearSelection();
+        requestRender();
         showNotification("All models cleared", "info");
     }
 
@@ -459,7 +687,7 @@ public class GuiController {
 
         // Сохраняем оригинальную модель при первом открытии панели
         if (!originalModels.containsKey(sceneObjects.get(selectedModelIndex))) {
-            Model originalModel = sceneObjects.get(selectedModelIndex).getModel().clone();
+            Model originalModel = sceneObjects.get(selectedModelIndex).getModel().snapshot();
             originalModels.put(sceneObjects.get(selectedModelIndex), originalModel);
         }
     }
@@ -485,23 +713,12 @@ public class GuiController {
             float ty = Float.parseFloat(translateY.getText());
             float tz = Float.parseFloat(translateZ.getText());
 
-            // Получаем текущую матрицу трансформации объекта
+            // Масштаб -> вращение -> перенос поверх текущего положения
             SceneObject selectedObject = sceneObjects.get(selectedModelIndex);
-            Matrix4f currentTransform = selectedObject.getTransform();
-
-            // Создаем матрицы для каждого типа трансформации
-            Matrix4f scaleMatrix = AffineTransformation.scale(sx, sy, sz);
-            Matrix4f rotateXMatrix = AffineTransformation.rotationX((float) Math.toRadians(rx));
-            Matrix4f rotateYMatrix = AffineTransformation.rotationY((float) Math.toRadians(ry));
-            Matrix4f rotateZMatrix = AffineTransformation.rotationZ((float) Math.toRadians(rz));
-            Matrix4f translateMatrix = AffineTransformation.translation(tx, ty, tz);
-
-            // Комбинируем матрицы в правильном порядке: масштаб -> вращение -> перенос
-            Matrix4f rotationMatrix = rotateZMatrix.multiply(rotateYMatrix).multiply(rotateXMatrix);
-            Matrix4f transformMatrix = translateMatrix.multiply(rotationMatrix).multiply(scaleMatrix);
-
-            // Применяем трансформацию к объекту
-            selectedObject.setTransform(transformMatrix.multiply(currentTransform));
+            selectedObject.scale(sx, sy, sz);
+            selectedObject.rotate(rx, ry, rz);
+            selectedObject.translate(tx, ty, tz);
+            requestRender();
 
             showNotification("Transformation applied", "success");
         } catch (NumberFormatException e) {
@@ -519,8 +736,10 @@ public class GuiController {
 
         if (originalModels.containsKey(sceneObjects.get(selectedModelIndex))) {
             Model originalModel = originalModels.get(sceneObjects.get(selectedModelIndex));
-            sceneObjects.get(selectedModelIndex).setModel(originalModel.clone());
-            sceneObjects.get(selectedModelIndex).setTransform(Matrix4f.identity());
+            sceneObjects.get(selectedModelIndex).setModel(originalModel.snapshot());
+            renderContext.clearSelection();
+            sceneObjects.get(selectedModelIndex).resetTransform();
+            requestRender();
             showNotification("Transformation undone", "success");
         } else {
             showNotification("No original model saved", "error");
@@ -546,7 +765,7 @@ public class GuiController {
                     sceneObjects.get(selectedModelIndex),
                     sceneObjects.get(selectedModelIndex).getModel()
             );
-            ObjWriter.write(modelToSave, file.getAbsolutePath());
+            ObjWriter.write(compacted(modelToSave), file.getAbsolutePath());
             showNotification("Original model saved: " + file.getName(), "success");
         } catch (Exception e) {
             showError("Ошибка сохранения", e.getMessage());
@@ -568,14 +787,22 @@ public class GuiController {
         if (file == null) return;
 
         try {
-            Model modelToSave = sceneObjects.get(selectedModelIndex).getModel();
-            ObjWriter.write(modelToSave, file.getAbsolutePath());
+            // В файл попадают координаты такими, какими модель видна на экране
+            SceneObject so = sceneObjects.get(selectedModelIndex);
+            ObjWriter.write(compacted(so.toTransformedModel(renderContext.getPool())), file.getAbsolutePath());
             showNotification("Transformed model saved: " + file.getName(), "success");
         } catch (Exception e) {
             showError("Ошибка сохранения", e.getMessage());
         }
     }
 
+    // Копия без осиротевших вершин, текстурных координат и нормалей: в файл они не попадают
+    private static Model compacted(Model model) {
+        Model copy = model.snapshot();
+        copy.compact();
+        return copy;
+    }
+
     // Скрыть панель трансформации
     @FXML
     private void onHideTransformPanel() {
@@ -599,7 +826,9 @@ public class GuiController {
         } else {
             selectedModelIndex = Math.max(0, selectedModelIndex - 1);
         }
+        renderContext.clearSelection();
 
+        requestRender();
         showNotification("Model removed", "success");
     }
 
@@ -609,6 +838,7 @@ public class GuiController {
     @FXML
     public void toggleMode() {
         modelMode = !modelMode;
+        requestRender();
         if (modelMode) {
             showNotification("Displaying transformed models", "info");
         } else {
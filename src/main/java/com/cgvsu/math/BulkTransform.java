@@ -0,0 +1,113 @@
+package com.cgvsu.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Преобразование массивов точек одной матрицей. Точки лежат подряд: x, y, z, x, y, z, ...
+// Точка — строка, умножаемая справа на матрицу, как в Matrix4f.transformPoint и конвейере рендера.
+// Варианты с пулом делят диапазон точек на куски и обрабатывают их параллельно
+public class BulkTransform {
+    // Меньшие массивы быстрее обработать в одном потоке, чем раздавать задачи
+    public static final int PARALLEL_THRESHOLD = 50_000;
+    private static final int CHUNK = 16_384;
+
+    // Обработчик диапазона точек [from, to)
+    public interface RangeTask {
+        void run(int from, int to);
+    }
+
+    // Однородные координаты x, y, z, w без деления, по четыре на точку
+    public static void transformToClip(Matrix4f matrix, float[] src, float[] clip, int from, int to) {
+        checkRange(src, 3, to);
+        checkRange(clip, 4, to);
+        float m00 = matrix.get(0, 0), m01 = matrix.get(0, 1), m02 = matrix.get(0, 2), m03 = matrix.get(0, 3);
+        float m10 = matrix.get(1, 0), m11 = matrix.get(1, 1), m12 = matrix.get(1, 2), m13 = matrix.get(1, 3);
+        float m20 = matrix.get(2, 0), m21 = matrix.get(2, 1), m22 = matrix.get(2, 2), m23 = matrix.get(2, 3);
+        float m30 = matrix.get(3, 0), m31 = matrix.get(3, 1), m32 = matrix.get(3, 2), m33 = matrix.get(3, 3);
+        for (int i = from; i < to; i++) {
+            float x = src[3 * i];
+            float y = src[3 * i + 1];
+            float z = src[3 * i + 2];
+            clip[4 * i] = x * m00 + y * m10 + z * m20 + m30;
+            clip[4 * i + 1] = x * m01 + y * m11 + z * m21 + m31;
+            clip[4 * i + 2] = x * m02 + y * m12 + z * m22 + m32;
+            clip[4 * i + 3] = x * m03 + y * m13 + z * m23 + m33;
+        }
+    }
+
+    public static void transformToClip(Matrix4f matrix, float[] src, float[] clip, int count, ForkJoinPool pool) {
+        forEachRange(pool, count, (from, to) -> transformToClip(matrix, src, clip, from, to));
+    }
+
+    // Координаты после деления на w; при w ~ 0 деление пропускается.
+    // dst может совпадать с src — тогда точки преобразуются на месте
+    public static void transformPoints(Matrix4f matrix, float[] src, float[] dst, int from, int to) {
+        checkRange(src, 3, to);
+        checkRange(dst, 3, to);
+        float m00 = matrix.get(0, 0), m01 = matrix.get(0, 1), m02 = matrix.get(0, 2), m03 = matrix.get(0, 3);
+        float m10 = matrix.get(1, 0), m11 = matrix.get(1, 1), m12 = matrix.get(1, 2), m13 = matrix.get(1, 3);
+        float m20 = matrix.get(2, 0), m21 = matrix.get(2, 1), m22 = matrix.get(2, 2), m23 = matrix.get(2, 3);
+        float m30 = matrix.get(3, 0), m31 = matrix.get(3, 1), m32 = matrix.get(3, 2), m33 = matrix.get(3, 3);
+        for (int i = from; i < to; i++) {
+            float x = src[3 * i];
+            float y = src[3 * i + 1];
+            float z = src[3 * i + 2];
+            float tx = x * m00 + y * m10 + z * m20 + m30;
+            float ty = x * m01 + y * m11 + z * m21 + m31;
+            float tz = x * m02 + y * m12 + z * m22 + m32;
+            float w = x * m03 + y * m13 + z * m23 + m33;
+            // Деление, а не умножение на 1 / w: результат совпадает с Matrix4f.transformPoint до бита
+            if (Math.abs(w) > 1e-7f) {
+                tx /= w;
+                ty /= w;
+                tz /= w;
+            }
+            dst[3 * i] = tx;
+            dst[3 * i + 1] = ty;
+            dst[3 * i + 2] = tz;
+        }
+    }
+
+    public static void transformPoints(Matrix4f matrix, float[] src, float[] dst, int count, ForkJoinPool pool) {
+        forEachRange(pool, count, (from, to) -> transformPoints(matrix, src, dst, from, to));
+    }
+
+    // Без пула или на малом числе точек — один вызов в текущем потоке
+    public static void forEachRange(ForkJoinPool pool, int count, RangeTask task) {
+        if (pool == null || count < PARALLEL_THRESHOLD) {
+            task.run(0, count);
+        } else {
+            pool.invoke(new RangeAction(task, 0, count));
+        }
+    }
+
+    private static void checkRange(float[] array, int stride, int to) {
+        if ((long) stride * to > array.length) {
+            throw new IllegalArgumentException("Array too short for " + to + " points");
+        }
+    }
+
+    private static class RangeAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeTask task;
+        private final int from;
+        private final int to;
+
+        RangeAction(RangeTask task, int from, int to) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                task.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeAction(task, from, mid), new RangeAction(task, mid, to));
+        }
+    }
+}
@@ -1,26 +1,25 @@
 package com.cgvsu.math;
 
+// Матрица 4x4 в одном массиве по строкам: элемент (row, col) — m[row * 4 + col].
+// Методы с суффиксом Into и transformPoint не создают объектов и годятся для горячих циклов
 public class Matrix4f {
-    private float[][] matrix;
+    private final float[] m;
 
     public Matrix4f() {
-        this.matrix = new float[4][4];
+        this.m = new float[16];
     }
 
-    public Matrix4f(Matrix4f m) {
-        this.matrix = new float[4][4];
-        for (int i = 0; i < 4; i++) {
-            System.arraycopy(m.matrix[i], 0, this.matrix[i], 0, 4);
-        }
+    public Matrix4f(Matrix4f other) {
+        this.m = other.m.clone();
     }
 
     public Matrix4f(float[][] values) {
         if (values.length != 4 || values[0].length != 4) {
             throw new IllegalArgumentException("Matrix must be 4x4");
         }
-        this.matrix = new float[4][4];
+        this.m = new float[16];
         for (int i = 0; i < 4; i++) {
-            System.arraycopy(values[i], 0, this.matrix[i], 0, 4);
+            System.arraycopy(values[i], 0, this.m, i * 4, 4);
         }
     }
 
@@ -28,11 +27,11 @@ public class Matrix4f {
                     float a21, float a22, float a23, float a24,
                     float a31, float a32, float a33, float a34,
                     float a41, float a42, float a43, float a44) {
-        this.matrix = new float[][]{
-                {a11, a12, a13, a14},
-                {a21, a22, a23, a24},
-                {a31, a32, a33, a34},
-                {a41, a42, a43, a44}
+        this.m = new float[]{
+                a11, a12, a13, a14,
+                a21, a22, a23, a24,
+                a31, a32, a33, a34,
+                a41, a42, a43, a44
         };
     }
 
@@ -55,27 +54,35 @@ public class Matrix4f {
     }
 
     public float get(int row, int col) {
-        if (row < 0 || row >= 4 || col < 0 || col >= 4) {
+        // Отрицательный индекс тоже даёт ненулевые старшие биты
+        if (((row | col) & ~3) != 0) {
             throw new IllegalArgumentException("Index out of bounds");
         }
-        return matrix[row][col];
+        return m[row * 4 + col];
     }
 
     public void set(int row, int col, float value) {
-        if (row < 0 || row >= 4 || col < 0 || col >= 4) {
+        if (((row | col) & ~3) != 0) {
             throw new IllegalArgumentException("Index out of bounds");
         }
-        matrix[row][col] = value;
+        m[row * 4 + col] = value;
+    }
+
+    // Все 16 элементов по строкам в dest начиная с offset
+    public void get(float[] dest, int offset) {
+        System.arraycopy(m, 0, dest, offset, 16);
+    }
+
+    public void set(float[] values, int offset) {
+        System.arraycopy(values, offset, m, 0, 16);
     }
 
     public boolean equals(Matrix4f other) {
         if (other == null) return false;
         final float eps = 1e-7f;
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                if (Math.abs(this.matrix[i][j] - other.matrix[i][j]) > eps) {
-                    return false;
-                }
+        for (int i = 0; i < 16; i++) {
+            if (Math.abs(this.m[i] - other.m[i]) > eps) {
+                return false;
             }
         }
         return true;
@@ -83,51 +90,78 @@ public class Matrix4f {
 
     public Matrix4f add(Matrix4f other) {
         if (other == null) throw new IllegalArgumentException("Other matrix must not be null");
-        float[][] result = new float[4][4];
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                result[i][j] = this.matrix[i][j] + other.matrix[i][j];
-            }
+        Matrix4f result = new Matrix4f();
+        for (int i = 0; i < 16; i++) {
+            result.m[i] = this.m[i] + other.m[i];
         }
-        return new Matrix4f(result);
+        return result;
     }
 
     public Matrix4f subtract(Matrix4f other) {
         if (other == null) throw new IllegalArgumentException("Other matrix must not be null");
-        float[][] result = new float[4][4];
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                result[i][j] = this.matrix[i][j] - other.matrix[i][j];
-            }
+        Matrix4f result = new Matrix4f();
+        for (int i = 0; i < 16; i++) {
+            result.m[i] = this.m[i] - other.m[i];
         }
-        return new Matrix4f(result);
+        return result;
     }
 
     public Vector4f multiply(Vector4f vector) {
         if (vector == null) throw new IllegalArgumentException("Vector must not be null");
-        float x = matrix[0][0] * vector.x + matrix[0][1] * vector.y +
-                matrix[0][2] * vector.z + matrix[0][3] * vector.w;
-        float y = matrix[1][0] * vector.x + matrix[1][1] * vector.y +
-                matrix[1][2] * vector.z + matrix[1][3] * vector.w;
-        float z = matrix[2][0] * vector.x + matrix[2][1] * vector.y +
-                matrix[2][2] * vector.z + matrix[2][3] * vector.w;
-        float w = matrix[3][0] * vector.x + matrix[3][1] * vector.y +
-                matrix[3][2] * vector.z + matrix[3][3] * vector.w;
+        float x = m[0] * vector.x + m[1] * vector.y + m[2] * vector.z + m[3] * vector.w;
+        float y = m[4] * vector.x + m[5] * vector.y + m[6] * vector.z + m[7] * vector.w;
+        float z = m[8] * vector.x + m[9] * vector.y + m[10] * vector.z + m[11] * vector.w;
+        float w = m[12] * vector.x + m[13] * vector.y + m[14] * vector.z + m[15] * vector.w;
         return new Vector4f(x, y, z, w);
     }
 
     public Matrix4f multiply(Matrix4f other) {
         if (other == null) throw new IllegalArgumentException("Other matrix must not be null");
-        float[][] result = new float[4][4];
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                result[i][j] = 0;
-                for (int k = 0; k < 4; k++) {
-                    result[i][j] += this.matrix[i][k] * other.matrix[k][j];
-                }
-            }
+        Matrix4f result = new Matrix4f();
+        multiply(this.m, other.m, result.m);
+        return result;
+    }
+
+    // dest = this * other без выделения памяти; dest может совпадать с this или other
+    public void mulInto(Matrix4f other, Matrix4f dest) {
+        if (other == null || dest == null) throw new IllegalArgumentException("Matrices must not be null");
+        multiply(this.m, other.m, dest.m);
+    }
+
+    // Строки a считаются в локальные переменные до записи, поэтому c может совпадать с a или b
+    private static void multiply(float[] a, float[] b, float[] c) {
+        float b00 = b[0], b01 = b[1], b02 = b[2], b03 = b[3];
+        float b10 = b[4], b11 = b[5], b12 = b[6], b13 = b[7];
+        float b20 = b[8], b21 = b[9], b22 = b[10], b23 = b[11];
+        float b30 = b[12], b31 = b[13], b32 = b[14], b33 = b[15];
+        for (int i = 0; i < 16; i += 4) {
+            float a0 = a[i], a1 = a[i + 1], a2 = a[i + 2], a3 = a[i + 3];
+            c[i] = a0 * b00 + a1 * b10 + a2 * b20 + a3 * b30;
+            c[i + 1] = a0 * b01 + a1 * b11 + a2 * b21 + a3 * b31;
+            c[i + 2] = a0 * b02 + a1 * b12 + a2 * b22 + a3 * b32;
+            c[i + 3] = a0 * b03 + a1 * b13 + a2 * b23 + a3 * b33;
         }
-        return new Matrix4f(result);
+    }
+
+    // Точка (x, y, z, 1) как строка умножается справа на матрицу, как в конвейере рендера,
+    // и делится на w. Читает src[srcOffset .. + 2], пишет dst[dstOffset .. + 2];
+    // массивы и смещения могут совпадать
+    public void transformPoint(float[] src, int srcOffset, float[] dst, int dstOffset) {
+        float px = src[srcOffset];
+        float py = src[srcOffset + 1];
+        float pz = src[srcOffset + 2];
+        float x = px * m[0] + py * m[4] + pz * m[8] + m[12];
+        float y = px * m[1] + py * m[5] + pz * m[9] + m[13];
+        float z = px * m[2] + py * m[6] + pz * m[10] + m[14];
+        float w = px * m[3] + py * m[7] + pz * m[11] + m[15];
+        if (Math.abs(w) > 1e-7f) {
+            x /= w;
+            y /= w;
+            z /= w;
+        }
+        dst[dstOffset] = x;
+        dst[dstOffset + 1] = y;
+        dst[dstOffset + 2] = z;
     }
 
     @Override
@@ -136,7 +170,7 @@ public class Matrix4f {
         for (int i = 0; i < 4; i++) {
             sb.append("[");
             for (int j = 0; j < 4; j++) {
-                sb.append(String.format("%.4f", matrix[i][j]));
+                sb.append(String.format("%.4f", m[i * 4 + j]));
                 if (j < 3) sb.append(", ");
             }
             sb.append("]\n");
@@ -145,144 +179,129 @@ public class Matrix4f {
     }
 
     public Matrix4f inverted() {
-        float[] m = new float[16];
-        int idx = 0;
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                m[idx++] = this.matrix[i][j];
-            }
-        }
-
-        float[][] inv = new float[4][4];
+        Matrix4f result = new Matrix4f();
+        invertInto(result);
+        return result;
+    }
 
-        inv[0][0] = m[5] * m[10] * m[15] - m[5] * m[11] * m[14] - m[9] * m[6] * m[15] + m[9] * m[7] * m[14] + m[13] * m[6] * m[11] - m[13] * m[7] * m[10];
-        inv[1][0] = -m[4] * m[10] * m[15] + m[4] * m[11] * m[14] + m[8] * m[6] * m[15] - m[8] * m[7] * m[14] - m[12] * m[6] * m[11] + m[12] * m[7] * m[10];
-        inv[2][0] = m[4] * m[9] * m[15] - m[4] * m[11] * m[13] - m[8] * m[5] * m[15] + m[8] * m[7] * m[13] + m[12] * m[5] * m[11] - m[12] * m[7] * m[9];
-        inv[3][0] = -m[4] * m[9] * m[14] + m[4] * m[10] * m[13] + m[8] * m[5] * m[14] - m[8] * m[6] * m[13] - m[12] * m[5] * m[10] + m[12] * m[6] * m[9];
+    // dest = this^-1 без выделения памяти; dest может совпадать с this
+    public void invertInto(Matrix4f dest) {
+        if (dest == null) throw new IllegalArgumentException("Destination matrix must not be null");
+        float[] m = this.m;
+        float i00 = m[5] * m[10] * m[15] - m[5] * m[11] * m[14] - m[9] * m[6] * m[15] + m[9] * m[7] * m[14] + m[13] * m[6] * m[11] - m[13] * m[7] * m[10];
+        float i10 = -m[4] * m[10] * m[15] + m[4] * m[11] * m[14] + m[8] * m[6] * m[15] - m[8] * m[7] * m[14] - m[12] * m[6] * m[11] + m[12] * m[7] * m[10];
+        float i20 = m[4] * m[9] * m[15] - m[4] * m[11] * m[13] - m[8] * m[5] * m[15] + m[8] * m[7] * m[13] + m[12] * m[5] * m[11] - m[12] * m[7] * m[9];
+        float i30 = -m[4] * m[9] * m[14] + m[4] * m[10] * m[13] + m[8] * m[5] * m[14] - m[8] * m[6] * m[13] - m[12] * m[5] * m[10] + m[12] * m[6] * m[9];
 
-        inv[0][1] = -m[1] * m[10] * m[15] + m[1] * m[11] * m[14] + m[9] * m[2] * m[15] - m[9] * m[3] * m[14] - m[13] * m[2] * m[11] + m[13] * m[3] * m[10];
-        inv[1][1] = m[0] * m[10] * m[15] - m[0] * m[11] * m[14] - m[8] * m[2] * m[15] + m[8] * m[3] * m[14] + m[12] * m[2] * m[11] - m[12] * m[3] * m[10];
-        inv[2][1] = -m[0] * m[9] * m[15] + m[0] * m[11] * m[13] + m[8] * m[1] * m[15] - m[8] * m[3] * m[13] - m[12] * m[1] * m[11] + m[12] * m[3] * m[9];
-        inv[3][1] = m[0] * m[9] * m[14] - m[0] * m[10] * m[13] - m[8] * m[1] * m[14] + m[8] * m[2] * m[13] + m[12] * m[1] * m[10] - m[12] * m[2] * m[9];
+        float i01 = -m[1] * m[10] * m[15] + m[1] * m[11] * m[14] + m[9] * m[2] * m[15] - m[9] * m[3] * m[14] - m[13] * m[2] * m[11] + m[13] * m[3] * m[10];
+        float i11 = m[0] * m[10] * m[15] - m[0] * m[11] * m[14] - m[8] * m[2] * m[15] + m[8] * m[3] * m[14] + m[12] * m[2] * m[11] - m[12] * m[3] * m[10];
+        float i21 = -m[0] * m[9] * m[15] + m[0] * m[11] * m[13] + m[8] * m[1] * m[15] - m[8] * m[3] * m[13] - m[12] * m[1] * m[11] + m[12] * m[3] * m[9];
+        float i31 = m[0] * m[9] * m[14] - m[0] * m[10] * m[13] - m[8] * m[1] * m[14] + m[8] * m[2] * m[13] + m[12] * m[1] * m[10] - m[12] * m[2] * m[9];
 
-        inv[0][2] = m[1] * m[6] * m[15] - m[1] * m[7] * m[14] - m[5] * m[2] * m[15] + m[5] * m[3] * m[14] + m[13] * m[2] * m[7] - m[13] * m[3] * m[6];
-        inv[1][2] = -m[0] * m[6] * m[15] + m[0] * m[7] * m[14] + m[4] * m[2] * m[15] - m[4] * m[3] * m[14] - m[12] * m[2] * m[7] + m[12] * m[3] * m[6];
-        inv[2][2] = m[0] * m[5] * m[15] - m[0] * m[7] * m[13] - m[4] * m[1] * m[15] + m[4] * m[3] * m[13] + m[12] * m[1] * m[7] - m[12] * m[3] * m[5];
-        inv[3][2] = -m[0] * m[5] * m[14] + m[0] * m[6] * m[13] + m[4] * m[1] * m[14] - m[4] * m[2] * m[13] - m[12] * m[1] * m[6] + m[12] * m[2] * m[5];
+        float i02 = m[1] * m[6] * m[15] - m[1] * m[7] * m[14] - m[5] * m[2] * m[15] + m[5] * m[3] * m[14] + m[13] * m[2] * m[7] - m[13] * m[3] * m[6];
+        float i12 = -m[0] * m[6] * m[15] + m[0] * m[7] * m[14] + m[4] * m[2] * m[15] - m[4] * m[3] * m[14] - m[12] * m[2] * m[7] + m[12] * m[3] * m[6];
+        float i22 = m[0] * m[5] * m[15] - m[0] * m[7] * m[13] - m[4] * m[1] * m[15] + m[4] * m[3] * m[13] + m[12] * m[1] * m[7] - m[12] * m[3] * m[5];
+        float i32 = -m[0] * m[5] * m[14] + m[0] * m[6] * m[13] + m[4] * m[1] * m[14] - m[4] * m[2] * m[13] - m[12] * m[1] * m[6] + m[12] * m[2] * m[5];
 
-        inv[0][3] = -m[1] * m[6] * m[11] + m[1] * m[7] * m[10] + m[5] * m[2] * m[11] - m[5] * m[3] * m[10] - m[9] * m[2] * m[7] + m[9] * m[3] * m[6];
-        inv[1][3] = m[0] * m[6] * m[11] - m[0] * m[7] * m[10] - m[4] * m[2] * m[11] + m[4] * m[3] * m[10] + m[8] * m[2] * m[7] - m[8] * m[3] * m[6];
-        inv[2][3] = -m[0] * m[5] * m[11] + m[0] * m[7] * m[9] + m[4] * m[1] * m[11] - m[4] * m[3] * m[9] - m[8] * m[1] * m[7] + m[8] * m[3] * m[5];
-        inv[3][3] = m[0] * m[5] * m[10] - m[0] * m[6] * m[9] - m[4] * m[1] * m[10] + m[4] * m[2] * m[9] + m[8] * m[1] * m[6] - m[8] * m[2] * m[5];
+        float i03 = -m[1] * m[6] * m[11] + m[1] * m[7] * m[10] + m[5] * m[2] * m[11] - m[5] * m[3] * m[10] - m[9] * m[2] * m[7] + m[9] * m[3] * m[6];
+        float i13 = m[0] * m[6] * m[11] - m[0] * m[7] * m[10] - m[4] * m[2] * m[11] + m[4] * m[3] * m[10] + m[8] * m[2] * m[7] - m[8] * m[3] * m[6];
+        float i23 = -m[0] * m[5] * m[11] + m[0] * m[7] * m[9] + m[4] * m[1] * m[11] - m[4] * m[3] * m[9] - m[8] * m[1] * m[7] + m[8] * m[3] * m[5];
+        float i33 = m[0] * m[5] * m[10] - m[0] * m[6] * m[9] - m[4] * m[1] * m[10] + m[4] * m[2] * m[9] + m[8] * m[1] * m[6] - m[8] * m[2] * m[5];
 
-        float det = m[0] * inv[0][0] + m[1] * inv[1][0] + m[2] * inv[2][0] + m[3] * inv[3][0];
+        float det = m[0] * i00 + m[1] * i10 + m[2] * i20 + m[3] * i30;
 
         if (Math.abs(det) < 1e-7f) {
             throw new ArithmeticException("Matrix is singular and cannot be inverted");
         }
 
         det = 1.0f / det;
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                inv[i][j] *= det;
-            }
-        }
-
-        return new Matrix4f(inv);
+        float[] d = dest.m;
+        d[0] = i00 * det;
+        d[1] = i01 * det;
+        d[2] = i02 * det;
+        d[3] = i03 * det;
+        d[4] = i10 * det;
+        d[5] = i11 * det;
+        d[6] = i12 * det;
+        d[7] = i13 * det;
+        d[8] = i20 * det;
+        d[9] = i21 * det;
+        d[10] = i22 * det;
+        d[11] = i23 * det;
+        d[12] = i30 * det;
+        d[13] = i31 * det;
+        d[14] = i32 * det;
+        d[15] = i33 * det;
     }
 
     public final void mul(Matrix4f other) {
         if (other == null) throw new IllegalArgumentException("Other matrix must not be null");
-        float[][] result = new float[4][4];
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                result[i][j] = 0;
-                for (int k = 0; k < 4; k++) {
-                    result[i][j] += this.matrix[i][k] * other.matrix[k][j];
-                }
-            }
-        }
-        for (int i = 0; i < 4; i++) {
-            System.arraycopy(result[i], 0, this.matrix[i], 0, 4);
-        }
+        multiply(this.m, other.m, this.m);
     }
 
     public final void mul(Matrix4f m1, Matrix4f m2) {
         if (m1 == null || m2 == null) throw new IllegalArgumentException("Matrices must not be null");
-        float[][] result = new float[4][4];
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                result[i][j] = 0;
-                for (int k = 0; k < 4; k++) {
-                    result[i][j] += m1.matrix[i][k] * m2.matrix[k][j];
-                }
-            }
-        }
-        for (int i = 0; i < 4; i++) {
-            System.arraycopy(result[i], 0, this.matrix[i], 0, 4);
-        }
+        multiply(m1.m, m2.m, this.m);
     }
 
     public final void setIdentity() {
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                matrix[i][j] = (i == j) ? 1.0f : 0.0f;
-            }
+        for (int i = 0; i < 16; i++) {
+            m[i] = (i % 5 == 0) ? 1.0f : 0.0f;
         }
     }
 
     public final void setTranslation(Vector3f translation) {
         if (translation == null) throw new IllegalArgumentException("Translation vector must not be null");
         setIdentity();
-        matrix[0][3] = translation.x;
-        matrix[1][3] = translation.y;
-        matrix[2][3] = translation.z;
+        m[3] = translation.x;
+        m[7] = translation.y;
+        m[11] = translation.z;
     }
 
     public final void rotX(float angle) {
         float cos = (float) Math.cos(angle);
         float sin = (float) Math.sin(angle);
         setIdentity();
-        matrix[1][1] = cos;
-        matrix[1][2] = -sin;
-        matrix[2][1] = sin;
-        matrix[2][2] = cos;
+        m[5] = cos;
+        m[6] = -sin;
+        m[9] = sin;
+        m[10] = cos;
     }
 
     public final void rotY(float angle) {
         float cos = (float) Math.cos(angle);
         float sin = (float) Math.sin(angle);
         setIdentity();
-        matrix[0][0] = cos;
-        matrix[0][2] = sin;
-        matrix[2][0] = -sin;
-        matrix[2][2] = cos;
+        m[0] = cos;
+        m[2] = sin;
+        m[8] = -sin;
+        m[10] = cos;
     }
 
     public final void rotZ(float angle) {
         float cos = (float) Math.cos(angle);
         float sin = (float) Math.sin(angle);
         setIdentity();
-        matrix[0][0] = cos;
-        matrix[0][1] = -sin;
-        matrix[1][0] = sin;
-        matrix[1][1] = cos;
+        m[0] = cos;
+        m[1] = -sin;
+        m[4] = sin;
+        m[5] = cos;
     }
 
     public final void setScale(Vector3f scale) {
         if (scale == null) throw new IllegalArgumentException("Scale vector must not be null");
         setIdentity();
-        matrix[0][0] = scale.x;
-        matrix[1][1] = scale.y;
-        matrix[2][2] = scale.z;
+        m[0] = scale.x;
+        m[5] = scale.y;
+        m[10] = scale.z;
     }
 
     public Vector3f transform(Vector3f point) {
         if (point == null) throw new IllegalArgumentException("Point must not be null");
-        float x = matrix[0][0] * point.x + matrix[0][1] * point.y + matrix[0][2] * point.z + matrix[0][3];
-        float y = matrix[1][0] * point.x + matrix[1][1] * point.y + matrix[1][2] * point.z + matrix[1][3];
-        float z = matrix[2][0] * point.x + matrix[2][1] * point.y + matrix[2][2] * point.z + matrix[2][3];
-        float w = matrix[3][0] * point.x + matrix[3][1] * point.y + matrix[3][2] * point.z + matrix[3][3];
+        float x = m[0] * point.x + m[1] * point.y + m[2] * point.z + m[3];
+        float y = m[4] * point.x + m[5] * point.y + m[6] * point.z + m[7];
+        float z = m[8] * point.x + m[9] * point.y + m[10] * point.z + m[11];
+        float w = m[12] * point.x + m[13] * point.y + m[14] * point.z + m[15];
         if (Math.abs(w) > 1e-7f) {
             return new Vector3f(x / w, y / w, z / w);
         }
@@ -291,53 +310,44 @@ public class Matrix4f {
 
     public final void set(Matrix4f other) {
         if (other == null) throw new IllegalArgumentException("Other matrix must not be null");
-        for (int i = 0; i < 4; i++) {
-            System.arraycopy(other.matrix[i], 0, this.matrix[i], 0, 4);
-        }
+        System.arraycopy(other.m, 0, this.m, 0, 16);
     }
 
     public boolean isIdentity() {
         final float eps = 1e-6f;
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                float expected = (i == j) ? 1.0f : 0.0f;
-                if (Math.abs(matrix[i][j] - expected) > eps) {
-                    return false;
-                }
+        for (int i = 0; i < 16; i++) {
+            float expected = (i % 5 == 0) ? 1.0f : 0.0f;
+            if (Math.abs(m[i] - expected) > eps) {
+                return false;
             }
         }
         return true;
     }
 
     public final void mul(float scalar) {
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                matrix[i][j] *= scalar;
-            }
+        for (int i = 0; i < 16; i++) {
+            m[i] *= scalar;
         }
     }
 
     public Vector3f getScale() {
-        float sx = (float) Math.sqrt(matrix[0][0] * matrix[0][0] + matrix[1][0] * matrix[1][0] + matrix[2][0] * matrix[2][0]);
-        float sy = (float) Math.sqrt(matrix[0][1] * matrix[0][1] + matrix[1][1] * matrix[1][1] + matrix[2][1] * matrix[2][1]);
-        float sz = (float) Math.sqrt(matrix[0][2] * matrix[0][2] + matrix[1][2] * matrix[1][2] + matrix[2][2] * matrix[2][2]);
+        float sx = (float) Math.sqrt(m[0] * m[0] + m[4] * m[4] + m[8] * m[8]);
+        float sy = (float) Math.sqrt(m[1] * m[1] + m[5] * m[5] + m[9] * m[9]);
+        float sz = (float) Math.sqrt(m[2] * m[2] + m[6] * m[6] + m[10] * m[10]);
         return new Vector3f(sx, sy, sz);
     }
 
     public final void invert() {
-        Matrix4f inverted = this.inverted();
-        this.set(inverted);
+        invertInto(this);
     }
 
     public final void transpose() {
-        float[][] result = new float[4][4];
         for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                result[i][j] = this.matrix[j][i];
+            for (int j = i + 1; j < 4; j++) {
+                float t = m[i * 4 + j];
+                m[i * 4 + j] = m[j * 4 + i];
+                m[j * 4 + i] = t;
             }
         }
-        for (int i = 0; i < 4; i++) {
-            System.arraycopy(result[i], 0, this.matrix[i], 0, 4);
-        }
     }
 }
@@ -0,0 +1,126 @@
+package com.cgvsu.math;
+
+// Единичный кватернион поворота x, y, z — векторная часть, w — скалярная.
+// Повороты хранятся так вместо матриц: композиция дешевле, а после нормализации
+// погрешность не накапливается в масштаб и перекос
+public class Quaternion {
+    public float x, y, z, w;
+
+    public Quaternion() {
+        this.w = 1;
+    }
+
+    public Quaternion(float x, float y, float z, float w) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+    }
+
+    public Quaternion(Quaternion q) {
+        this(q.x, q.y, q.z, q.w);
+    }
+
+    public static Quaternion identity() {
+        return new Quaternion();
+    }
+
+    // Поворот на angle радиан вокруг оси axis
+    public static Quaternion fromAxisAngle(Vector3f axis, float angle) {
+        if (axis == null) throw new IllegalArgumentException("Axis must not be null");
+        float length = axis.length();
+        if (length == 0) {
+            throw new IllegalArgumentException("Axis must not be zero");
+        }
+        float s = (float) Math.sin(angle * 0.5) / length;
+        return new Quaternion(axis.x * s, axis.y * s, axis.z * s, (float) Math.cos(angle * 0.5));
+    }
+
+    // Углы в радианах; сначала поворот вокруг X, затем Y, затем Z
+    public static Quaternion fromEuler(float rx, float ry, float rz) {
+        float cx = (float) Math.cos(rx * 0.5), sx = (float) Math.sin(rx * 0.5);
+        float cy = (float) Math.cos(ry * 0.5), sy = (float) Math.sin(ry * 0.5);
+        float cz = (float) Math.cos(rz * 0.5), sz = (float) Math.sin(rz * 0.5);
+        // qz * qy * qx в раскрытом виде
+        return new Quaternion(
+                sx * cy * cz - cx * sy * sz,
+                cx * sy * cz + sx * cy * sz,
+                cx * cy * sz - sx * sy * cz,
+                cx * cy * cz + sx * sy * sz);
+    }
+
+    // Произведение this * other: поворот other, затем this
+    public Quaternion multiply(Quaternion other) {
+        return new Quaternion(
+                w * other.x + x * other.w + y * other.z - z * other.y,
+                w * other.y - x * other.z + y * other.w + z * other.x,
+                w * other.z + x * other.y - y * other.x + z * other.w,
+                w * other.w - x * other.x - y * other.y - z * other.z);
+    }
+
+    public float length() {
+        return (float) Math.sqrt(x * x + y * y + z * z + w * w);
+    }
+
+    public void normalize() {
+        float length = length();
+        if (length == 0) {
+            throw new ArithmeticException("Cannot normalize zero quaternion");
+        }
+        x /= length;
+        y /= length;
+        z /= length;
+        w /= length;
+    }
+
+    // Обратно к toRotationRows: кватернион по ортонормированной матрице поворота
+    // в том же построчном виде. Ветвь выбирается по наибольшему диагональному
+    // элементу, чтобы не делить на близкое к нулю число
+    public static Quaternion fromRotationRows(float[] r) {
+        if (r == null || r.length < 9) {
+            throw new IllegalArgumentException("Rotation must hold 9 elements");
+        }
+        float trace = r[0] + r[4] + r[8];
+        Quaternion q;
+        if (trace > 0) {
+            float s = (float) Math.sqrt(trace + 1) * 2;
+            q = new Quaternion((r[5] - r[7]) / s, (r[6] - r[2]) / s, (r[1] - r[3]) / s, 0.25f * s);
+        } else if (r[0] > r[4] && r[0] > r[8]) {
+            float s = (float) Math.sqrt(1 + r[0] - r[4] - r[8]) * 2;
+            q = new Quaternion(0.25f * s, (r[1] + r[3]) / s, (r[2] + r[6]) / s, (r[5] - r[7]) / s);
+        } else if (r[4] > r[8]) {
+            float s = (float) Math.sqrt(1 + r[4] - r[0] - r[8]) * 2;
+            q = new Quaternion((r[1] + r[3]) / s, 0.25f * s, (r[5] + r[7]) / s, (r[6] - r[2]) / s);
+        } else {
+            float s = (float) Math.sqrt(1 + r[8] - r[0] - r[4]) * 2;
+            q = new Quaternion((r[2] + r[6]) / s, (r[5] + r[7]) / s, 0.25f * s, (r[1] - r[3]) / s);
+        }
+        q.normalize();
+        return q;
+    }
+
+    // Элемент (row, col) матрицы поворота в соглашении конвейера: точка — строка,
+    // умножаемая справа, поэтому это транспонированная «школьная» матрица поворота
+    public void toRotationRows(float[] dest) {
+        if (dest == null || dest.length < 9) {
+            throw new IllegalArgumentException("Destination must hold 9 elements");
+        }
+        float xx = x * x, yy = y * y, zz = z * z;
+        float xy = x * y, xz = x * z, yz = y * z;
+        float wx = w * x, wy = w * y, wz = w * z;
+        dest[0] = 1 - 2 * (yy + zz);
+        dest[1] = 2 * (xy + wz);
+        dest[2] = 2 * (xz - wy);
+        dest[3] = 2 * (xy - wz);
+        dest[4] = 1 - 2 * (xx + zz);
+        dest[5] = 2 * (yz + wx);
+        dest[6] = 2 * (xz + wy);
+        dest[7] = 2 * (yz - wx);
+        dest[8] = 1 - 2 * (xx + yy);
+    }
+
+    @Override
+    public String toString() {
+        return "Quaternion(" + x + ", " + y + ", " + z + ", " + w + ")";
+    }
+}
@@ -0,0 +1,79 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+
+// Список уникальных рёбер: общее ребро двух полигонов попадает в него один раз
+class EdgeIndex {
+    // Второй полигон у граничного ребра
+    static final int NO_FACE = -1;
+    // У ребра больше двух полигонов
+    static final int MANY_FACES = -2;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    // Пары индексов вершин (a0, b0, a1, b1, ...) в порядке первого появления, a < b
+    final int[] edges;
+    // Пары полигонов, которым принадлежит ребро (f0, f1, ...)
+    final int[] edgeFaces;
+
+    private EdgeIndex(int[] edges, int[] edgeFaces) {
+        this.edges = edges;
+        this.edgeFaces = edgeFaces;
+    }
+
+    static EdgeIndex build(int[] offsets, int[] indices, int polygonCount) {
+        int references = offsets[polygonCount];
+
+        // Открытая адресация по long-ключам, без упаковки в Long; в slots — номер ребра
+        int capacity = Integer.highestOneBit(Math.max(references * 2, 16) - 1) << 1;
+        long[] table = new long[capacity];
+        int[] slots = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        int mask = capacity - 1;
+
+        int[] edges = new int[references * 2];
+        int[] faces = new int[references * 2];
+        int count = 0;
+        for (int f = 0; f < polygonCount; f++) {
+            int from = offsets[f];
+            int to = offsets[f + 1];
+            for (int k = from; k < to; k++) {
+                int a = indices[k];
+                int b = indices[k + 1 < to ? k + 1 : from];
+                if (a == b) continue;
+                if (a > b) {
+                    int t = a;
+                    a = b;
+                    b = t;
+                }
+                long key = ((long) a << 32) | (b & 0xFFFFFFFFL);
+                int slot = mix(key) & mask;
+                while (table[slot] != EMPTY && table[slot] != key) {
+                    slot = (slot + 1) & mask;
+                }
+                if (table[slot] == EMPTY) {
+                    table[slot] = key;
+                    slots[slot] = count;
+                    edges[2 * count] = a;
+                    edges[2 * count + 1] = b;
+                    faces[2 * count] = f;
+                    faces[2 * count + 1] = NO_FACE;
+                    count++;
+                } else {
+                    int e = slots[slot];
+                    if (faces[2 * e + 1] == NO_FACE && faces[2 * e] != f) {
+                        faces[2 * e + 1] = f;
+                    } else if (faces[2 * e] != f && faces[2 * e + 1] != f) {
+                        faces[2 * e + 1] = MANY_FACES;
+                    }
+                }
+            }
+        }
+        return new EdgeIndex(Arrays.copyOf(edges, 2 * count), Arrays.copyOf(faces, 2 * count));
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,220 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+// Смежность вершин и полигонов в формате CSR: для каждой вершины — возрастающий список
+// полигонов, в которые она входит. Соседи полигона, соседи вершины и граничные рёбра
+// находятся обходом только локальной окрестности, без просмотра всех полигонов
+class MeshAdjacency {
+    // На меньших сетках параллельная сборка медленнее последовательной
+    private static final int PARALLEL_THRESHOLD = 200_000;
+
+    private int vertexCount;
+    // Полигоны вершины v — faces[offsets[v]] .. faces[offsets[v + 1] - 1]
+    private int[] offsets;
+    private int[] faces;
+
+    private MeshAdjacency(int vertexCount, int[] offsets, int[] faces) {
+        this.vertexCount = vertexCount;
+        this.offsets = offsets;
+        this.faces = faces;
+    }
+
+    static MeshAdjacency build(int[] faceOffsets, int[] faceVertices, int polygonCount, int vertexCount) {
+        if (faceOffsets[polygonCount] < PARALLEL_THRESHOLD) {
+            return buildSequential(faceOffsets, faceVertices, polygonCount, vertexCount);
+        }
+        return buildParallel(faceOffsets, faceVertices, polygonCount, vertexCount);
+    }
+
+    private static MeshAdjacency buildSequential(int[] faceOffsets, int[] faceVertices,
+                                                 int polygonCount, int vertexCount) {
+        int[] offsets = new int[vertexCount + 1];
+        for (int p = 0; p < polygonCount; p++) {
+            for (int k = faceOffsets[p]; k < faceOffsets[p + 1]; k++) {
+                if (isFirstOccurrence(faceVertices, faceOffsets[p], k)) {
+                    offsets[faceVertices[k] + 1]++;
+                }
+            }
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] faces = new int[offsets[vertexCount]];
+        int[] cursor = Arrays.copyOf(offsets, vertexCount);
+        for (int p = 0; p < polygonCount; p++) {
+            for (int k = faceOffsets[p]; k < faceOffsets[p + 1]; k++) {
+                if (isFirstOccurrence(faceVertices, faceOffsets[p], k)) {
+                    faces[cursor[faceVertices[k]]++] = p;
+                }
+            }
+        }
+        return new MeshAdjacency(vertexCount, offsets, faces);
+    }
+
+    // Подсчёт и раскладка идут параллельно по полигонам через атомарные счётчики,
+    // после чего списки вершин сортируются, чтобы результат не зависел от потоков
+    private static MeshAdjacency buildParallel(int[] faceOffsets, int[] faceVertices,
+                                               int polygonCount, int vertexCount) {
+        AtomicIntegerArray counts = new AtomicIntegerArray(vertexCount + 1);
+        IntStream.range(0, polygonCount).parallel().forEach(p -> {
+            for (int k = faceOffsets[p]; k < faceOffsets[p + 1]; k++) {
+                if (isFirstOccurrence(faceVertices, faceOffsets[p], k)) {
+                    counts.incrementAndGet(faceVertices[k] + 1);
+                }
+            }
+        });
+        int[] offsets = new int[vertexCount + 1];
+        for (int v = 0; v <= vertexCount; v++) {
+            offsets[v] = counts.get(v);
+        }
+        Arrays.parallelPrefix(offsets, Integer::sum);
+
+        int[] faces = new int[offsets[vertexCount]];
+        AtomicIntegerArray cursor = new AtomicIntegerArray(Arrays.copyOf(offsets, vertexCount));
+        IntStream.range(0, polygonCount).parallel().forEach(p -> {
+            for (int k = faceOffsets[p]; k < faceOffsets[p + 1]; k++) {
+                if (isFirstOccurrence(faceVertices, faceOffsets[p], k)) {
+                    faces[cursor.getAndIncrement(faceVertices[k])] = p;
+                }
+            }
+        });
+        IntStream.range(0, vertexCount).parallel()
+                .forEach(v -> Arrays.sort(faces, offsets[v], offsets[v + 1]));
+        return new MeshAdjacency(vertexCount, offsets, faces);
+    }
+
+    // Вершина, повторяющаяся в полигоне, учитывается один раз
+    private static boolean isFirstOccurrence(int[] faceVertices, int from, int k) {
+        for (int i = from; i < k; i++) {
+            if (faceVertices[i] == faceVertices[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Полигоны вершины без копирования: faceAt(i) для i из [facesFrom, facesTo)
+    int facesFrom(int vertex) {
+        return offsets[vertex];
+    }
+
+    int facesTo(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    int faceAt(int i) {
+        return faces[i];
+    }
+
+    int[] facesOf(int vertex) {
+        return Arrays.copyOfRange(faces, offsets[vertex], offsets[vertex + 1]);
+    }
+
+    // Полигоны, имеющие с polygon общее ребро
+    int[] polygonNeighbors(int[] faceOffsets, int[] faceVertices, int polygon) {
+        int from = faceOffsets[polygon];
+        int to = faceOffsets[polygon + 1];
+        int[] result = new int[8];
+        int count = 0;
+        for (int k = from; k < to; k++) {
+            int a = faceVertices[k];
+            int b = faceVertices[k + 1 < to ? k + 1 : from];
+            for (int i = offsets[a]; i < offsets[a + 1]; i++) {
+                int g = faces[i];
+                if (g == polygon || contains(result, count, g)
+                        || !hasEdge(faceOffsets, faceVertices, g, a, b)) {
+                    continue;
+                }
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = g;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // Вершины, соединённые с vertex ребром какого-либо полигона
+    int[] vertexNeighbors(int[] faceOffsets, int[] faceVertices, int vertex) {
+        int[] result = new int[8];
+        int count = 0;
+        for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+            int g = faces[i];
+            int from = faceOffsets[g];
+            int to = faceOffsets[g + 1];
+            for (int k = from; k < to; k++) {
+                if (faceVertices[k] != vertex) continue;
+                int prev = faceVertices[k > from ? k - 1 : to - 1];
+                int next = faceVertices[k + 1 < to ? k + 1 : from];
+                for (int neighbor : new int[]{prev, next}) {
+                    if (neighbor == vertex || contains(result, count, neighbor)) continue;
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count * 2);
+                    }
+                    result[count++] = neighbor;
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // Ребро граничное, если его содержит ровно один полигон
+    boolean isBoundaryEdge(int[] faceOffsets, int[] faceVertices, int a, int b) {
+        int count = 0;
+        for (int i = offsets[a]; i < offsets[a + 1]; i++) {
+            if (hasEdge(faceOffsets, faceVertices, faces[i], a, b)) {
+                count++;
+            }
+        }
+        return count == 1;
+    }
+
+    private static boolean hasEdge(int[] faceOffsets, int[] faceVertices, int polygon, int a, int b) {
+        int from = faceOffsets[polygon];
+        int to = faceOffsets[polygon + 1];
+        for (int k = from; k < to; k++) {
+            int u = faceVertices[k];
+            int w = faceVertices[k + 1 < to ? k + 1 : from];
+            if ((u == a && w == b) || (u == b && w == a)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Приводит индекс в соответствие с моделью после удаления: vertexRemap и faceRemap
+    // дают новый номер или -1 для удалённых; null — эта группа не менялась.
+    // Сжатие идёт на месте за один проход, порядок списков сохраняется
+    void remap(int[] vertexRemap, int[] faceRemap) {
+        int write = 0;
+        int kept = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            int from = offsets[v];
+            int to = offsets[v + 1];
+            if (vertexRemap != null && vertexRemap[v] < 0) continue;
+            offsets[kept] = write;
+            for (int i = from; i < to; i++) {
+                int g = faceRemap != null ? faceRemap[faces[i]] : faces[i];
+                if (g >= 0) {
+                    faces[write++] = g;
+                }
+            }
+            kept++;
+        }
+        offsets[kept] = write;
+        vertexCount = kept;
+    }
+}
@@ -1,103 +1,919 @@
 package com.cgvsu.model;
 
+import com.cgvsu.math.BulkTransform;
 import com.cgvsu.math.Matrix4f;
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
+// Сетка хранится плоскими массивами: координаты подряд (x, y, z, ...), а полигоны —
+// в формате CSR: индексы всех полигонов подряд и смещения начала каждого полигона.
+// getVertices()/getPolygons() — представления поверх массивов, объекты создаются при обращении.
+// Снимки (snapshot/clone) делят массивы с исходной моделью, пока одна из них не изменится
 public class Model {
-    private final ArrayList<Vector3f> vertices = new ArrayList<>();
-    private final ArrayList<Vector2f> textureVertices = new ArrayList<>();
-    private final ArrayList<Vector3f> normals = new ArrayList<>();
-    private final ArrayList<Polygon> polygons = new ArrayList<>();
+    // Флаги полигона: были ли у него списки текстурных индексов и нормалей
+    private static final byte HAS_TEXTURES = 1;
+    private static final byte HAS_NORMALS = 2;
+    // Переписывание индексов полигонов идёт параллельно, начиная с этого числа ссылок
+    private static final int PARALLEL_REMAP_THRESHOLD = 200_000;
+
+    private float[] positions = new float[3 * 16];
+    private int vertexCount;
+    private float[] textureCoords = new float[2 * 16];
+    private int textureVertexCount;
+    private float[] normalCoords = new float[3 * 16];
+    private int normalCount;
+
+    // Полигон p занимает [faceOffsets[p], faceOffsets[p + 1]) в массивах индексов
+    private int[] faceOffsets = new int[16 + 1];
+    private int[] faceVertices = new int[64];
+    // Параллельны faceVertices, -1 там, где индекса нет
+    private int[] faceTextures = new int[64];
+    private int[] faceNormals = new int[64];
+    private byte[] faceFlags = new byte[16];
+    private int polygonCount;
+
+    // Массивы группы общие с другой моделью и перед записью должны быть скопированы
+    private boolean positionsShared;
+    private boolean texturesShared;
+    private boolean normalsShared;
+    private boolean facesShared;
+
     private Matrix4f modelMatrix = Matrix4f.identity();
+    // Кэш уникальных рёбер, сбрасывается при изменении полигонов
+    private EdgeIndex edgeIndex;
+    // Смежность вершин и полигонов: строится при первом запросе и поддерживается при удалениях.
+    // Изменяется на месте, поэтому снимкам не передаётся
+    private MeshAdjacency adjacency;
+    // Дерево для пересечения с лучом; строится лениво, сбрасывается вместе с кэшем рёбер
+    private PolygonBvh bvh;
+
+    // Автоматическое сжатие: доля мусора относительно числа элементов, 0 — выключено
+    private float autoCompactThreshold;
+    // Верхняя оценка числа осиротевших элементов: углы удалённых полигонов с прошлого сжатия
+    private int possibleGarbage;
+    // Кэш AABB: minX, minY, minZ, maxX, maxY, maxZ; сбрасывается при изменении вершин
+    private float[] bounds;
 
     public void setModelMatrix(Matrix4f matrix) {
         this.modelMatrix = matrix;
     }
 
     public void addVertex(Vector3f vertex) {
-        vertices.add(vertex);
+        addVertex(vertex.x, vertex.y, vertex.z);
+    }
+
+    public void addVertex(float x, float y, float z) {
+        ownPositions();
+        if (positions.length < 3 * (vertexCount + 1)) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+        int o = 3 * vertexCount++;
+        positions[o] = x;
+        positions[o + 1] = y;
+        positions[o + 2] = z;
+        bounds = null;
+        adjacency = null;
     }
 
     public void addTextureVertex(Vector2f tex) {
-        textureVertices.add(tex);
+        ownTextures();
+        if (textureCoords.length < 2 * (textureVertexCount + 1)) {
+            textureCoords = Arrays.copyOf(textureCoords, textureCoords.length * 2);
+        }
+        int o = 2 * textureVertexCount++;
+        textureCoords[o] = tex.x;
+        textureCoords[o + 1] = tex.y;
     }
 
     public void addNormal(Vector3f normal) {
-        normals.add(normal);
+        ownNormals();
+        if (normalCoords.length < 3 * (normalCount + 1)) {
+            normalCoords = Arrays.copyOf(normalCoords, normalCoords.length * 2);
+        }
+        int o = 3 * normalCount++;
+        normalCoords[o] = normal.x;
+        normalCoords[o + 1] = normal.y;
+        normalCoords[o + 2] = normal.z;
     }
 
+    // Индексы копируются: последующие изменения polygon на модель не влияют
     public void addPolygon(Polygon polygon) {
-        polygons.add(polygon);
+        int n = polygon.getVertexCount();
+        int textures = polygon.getTextureVertexCount();
+        int normals = polygon.getNormalCount();
+        if (textures != 0 && textures != n) {
+            throw new IllegalArgumentException("Texture index count " + textures
+                    + " does not match vertex count " + n);
+        }
+        if (normals != 0 && normals != n) {
+            throw new IllegalArgumentException("Normal index count " + normals
+                    + " does not match vertex count " + n);
+        }
+
+        ownFaces();
+        reservePolygon(n);
+        int start = faceOffsets[polygonCount];
+        polygon.copyVertexIndices(faceVertices, start);
+        if (textures != 0) {
+            polygon.copyTextureVertexIndices(faceTextures, start);
+        } else {
+            Arrays.fill(faceTextures, start, start + n, -1);
+        }
+        if (normals != 0) {
+            polygon.copyNormalIndices(faceNormals, start);
+        } else {
+            Arrays.fill(faceNormals, start, start + n, -1);
+        }
+        byte flags = 0;
+        if (textures != 0) flags |= HAS_TEXTURES;
+        if (normals != 0) flags |= HAS_NORMALS;
+        faceFlags[polygonCount] = flags;
+        faceOffsets[++polygonCount] = start + n;
+        edgeIndex = null;
+        bvh = null;
+        adjacency = null;
+    }
+
+    private void reservePolygon(int n) {
+        if (faceFlags.length == polygonCount) {
+            faceFlags = Arrays.copyOf(faceFlags, polygonCount * 2);
+            faceOffsets = Arrays.copyOf(faceOffsets, polygonCount * 2 + 1);
+        }
+        int required = faceOffsets[polygonCount] + n;
+        if (faceVertices.length < required) {
+            int capacity = Math.max(required, faceVertices.length * 2);
+            faceVertices = Arrays.copyOf(faceVertices, capacity);
+            faceTextures = Arrays.copyOf(faceTextures, capacity);
+            faceNormals = Arrays.copyOf(faceNormals, capacity);
+        }
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getTextureVertexCount() {
+        return textureVertexCount;
+    }
+
+    public int getNormalCount() {
+        return normalCount;
+    }
+
+    public int getPolygonCount() {
+        return polygonCount;
+    }
+
+    // Координаты вершин подряд x, y, z; массив может быть длиннее 3 * getVertexCount().
+    // Массив не изменять
+    public float[] getPositions() {
+        return positions;
+    }
+
+    // Смещения полигонов в getPolygonVertexIndices(), getPolygonCount() + 1 значений.
+    // Массив не изменять
+    public int[] getPolygonOffsets() {
+        return faceOffsets;
+    }
+
+    // Индексы вершин всех полигонов подряд. Массив не изменять
+    public int[] getPolygonVertexIndices() {
+        return faceVertices;
+    }
+
+    public int getPolygonVertexCount(int polygonIndex) {
+        return faceOffsets[polygonIndex + 1] - faceOffsets[polygonIndex];
     }
 
     public List<Vector3f> getVertices() {
-        return Collections.unmodifiableList(vertices);
+        return new AbstractList<>() {
+            @Override
+            public Vector3f get(int index) {
+                checkIndex(index, vertexCount);
+                return new Vector3f(positions[3 * index], positions[3 * index + 1], positions[3 * index + 2]);
+            }
+
+            @Override
+            public int size() {
+                return vertexCount;
+            }
+        };
     }
 
     public List<Vector2f> getTextureVertices() {
-        return Collections.unmodifiableList(textureVertices);
+        return new AbstractList<>() {
+            @Override
+            public Vector2f get(int index) {
+                checkIndex(index, textureVertexCount);
+                return new Vector2f(textureCoords[2 * index], textureCoords[2 * index + 1]);
+            }
+
+            @Override
+            public int size() {
+                return textureVertexCount;
+            }
+        };
     }
 
     public List<Vector3f> getNormals() {
-        return Collections.unmodifiableList(normals);
+        return new AbstractList<>() {
+            @Override
+            public Vector3f get(int index) {
+                checkIndex(index, normalCount);
+                return new Vector3f(normalCoords[3 * index], normalCoords[3 * index + 1], normalCoords[3 * index + 2]);
+            }
+
+            @Override
+            public int size() {
+                return normalCount;
+            }
+        };
     }
 
+    // Полигоны собираются из массивов при каждом обращении; их изменение модель не затрагивает
     public List<Polygon> getPolygons() {
-        return Collections.unmodifiableList(polygons);
+        return new AbstractList<>() {
+            @Override
+            public Polygon get(int index) {
+                checkIndex(index, polygonCount);
+                return buildPolygon(index);
+            }
+
+            @Override
+            public int size() {
+                return polygonCount;
+            }
+        };
+    }
+
+    private Polygon buildPolygon(int index) {
+        int from = faceOffsets[index];
+        int to = faceOffsets[index + 1];
+        byte flags = faceFlags[index];
+        return new Polygon(
+                Arrays.copyOfRange(faceVertices, from, to),
+                (flags & HAS_TEXTURES) != 0 ? Arrays.copyOfRange(faceTextures, from, to) : new int[0],
+                (flags & HAS_NORMALS) != 0 ? Arrays.copyOfRange(faceNormals, from, to) : new int[0]);
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    // Уникальные рёбра парами индексов вершин (a0, b0, a1, b1, ...); массив не изменять
+    public int[] getEdges() {
+        return getEdgeIndex().edges;
+    }
+
+    // Для каждого ребра — два индекса полигонов; второй равен -1 у граничного ребра
+    // и -2, если полигонов у ребра больше двух. Массив не изменять
+    public int[] getEdgeFaces() {
+        return getEdgeIndex().edgeFaces;
+    }
+
+    private EdgeIndex getEdgeIndex() {
+        if (edgeIndex == null) {
+            edgeIndex = EdgeIndex.build(faceOffsets, faceVertices, polygonCount);
+        }
+        return edgeIndex;
+    }
+
+    public int getEdgeCount() {
+        return getEdges().length / 2;
+    }
+
+    // Полигоны, в которые входит вершина, по возрастанию индекса
+    public int[] getVertexPolygons(int vertexIndex) {
+        checkVertex(vertexIndex);
+        return getAdjacency().facesOf(vertexIndex);
+    }
+
+    // Вершины, соединённые с данной ребром
+    public int[] getVertexNeighbors(int vertexIndex) {
+        checkVertex(vertexIndex);
+        return getAdjacency().vertexNeighbors(faceOffsets, faceVertices, vertexIndex);
+    }
+
+    // Полигоны, имеющие с данным общее ребро
+    public int[] getPolygonNeighbors(int polygonIndex) {
+        if (polygonIndex < 0 || polygonIndex >= polygonCount) {
+            throw new IllegalArgumentException("Invalid polygon index: " + polygonIndex);
+        }
+        return getAdjacency().polygonNeighbors(faceOffsets, faceVertices, polygonIndex);
+    }
+
+    // Ребро a-b принадлежит ровно одному полигону
+    public boolean isBoundaryEdge(int a, int b) {
+        checkVertex(a);
+        checkVertex(b);
+        return getAdjacency().isBoundaryEdge(faceOffsets, faceVertices, a, b);
+    }
+
+    // Полигоны, все вершины которых отмечены. С построенной смежностью просматриваются
+    // только полигоны отмеченных вершин, иначе — все полигоны один раз
+    public BitSet getPolygonsWithin(BitSet vertices) {
+        BitSet result = new BitSet(polygonCount);
+        if (adjacency == null) {
+            for (int p = 0; p < polygonCount; p++) {
+                if (isPolygonWithin(p, vertices)) {
+                    result.set(p);
+                }
+            }
+            return result;
+        }
+        BitSet checked = new BitSet(polygonCount);
+        for (int v = vertices.nextSetBit(0); v >= 0 && v < vertexCount; v = vertices.nextSetBit(v + 1)) {
+            for (int i = adjacency.facesFrom(v); i < adjacency.facesTo(v); i++) {
+                int p = adjacency.faceAt(i);
+                if (checked.get(p)) continue;
+                checked.set(p);
+                if (isPolygonWithin(p, vertices)) {
+                    result.set(p);
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean isPolygonWithin(int polygon, BitSet vertices) {
+        int from = faceOffsets[polygon];
+        int to = faceOffsets[polygon + 1];
+        if (from == to) {
+            return false;
+        }
+        for (int k = from; k < to; k++) {
+            if (!vertices.get(faceVertices[k])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Ближайшее пересечение луча origin + t * direction (t >= 0) с полигонами модели
+    // в её собственных координатах; null, если луч ничего не задевает
+    public RayHit raycast(Vector3f origin, Vector3f direction) {
+        if (bvh == null) {
+            bvh = PolygonBvh.build(faceOffsets, faceVertices, polygonCount, positions);
+        }
+        float[] hit = new float[1];
+        int polygon = bvh.raycast(origin.x, origin.y, origin.z, direction.x, direction.y, direction.z, hit);
+        if (polygon < 0) {
+            return null;
+        }
+
+        float t = hit[0];
+        float px = origin.x + t * direction.x;
+        float py = origin.y + t * direction.y;
+        float pz = origin.z + t * direction.z;
+        int nearest = -1;
+        float nearestDistance = Float.POSITIVE_INFINITY;
+        for (int k = faceOffsets[polygon]; k < faceOffsets[polygon + 1]; k++) {
+            int o = 3 * faceVertices[k];
+            float ex = positions[o] - px, ey = positions[o + 1] - py, ez = positions[o + 2] - pz;
+            float distance = ex * ex + ey * ey + ez * ez;
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = faceVertices[k];
+            }
+        }
+        return new RayHit(polygon, nearest, t);
+    }
+
+    private void checkVertex(int index) {
+        if (index < 0 || index >= vertexCount) {
+            throw new IllegalArgumentException("Invalid vertex index: " + index);
+        }
+    }
+
+    private MeshAdjacency getAdjacency() {
+        if (adjacency == null) {
+            adjacency = MeshAdjacency.build(faceOffsets, faceVertices, polygonCount, vertexCount);
+        }
+        return adjacency;
+    }
+
+    // Ограничивающий параллелепипед в координатах модели; null для модели без вершин.
+    // Массив не изменять
+    public float[] getBounds() {
+        if (bounds == null && vertexCount > 0) {
+            bounds = computeBounds();
+        }
+        return bounds;
+    }
+
+    private float[] computeBounds() {
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int o = 0; o < 3 * vertexCount; o += 3) {
+            minX = Math.min(minX, positions[o]);
+            minY = Math.min(minY, positions[o + 1]);
+            minZ = Math.min(minZ, positions[o + 2]);
+            maxX = Math.max(maxX, positions[o]);
+            maxY = Math.max(maxY, positions[o + 1]);
+            maxZ = Math.max(maxZ, positions[o + 2]);
+        }
+        return new float[]{minX, minY, minZ, maxX, maxY, maxZ};
     }
 
     public void removeVertex(int index) {
-        if (index < 0 || index >= vertices.size()) {
+        if (index < 0 || index >= vertexCount) {
             throw new IllegalArgumentException("Invalid vertex index: " + index);
         }
-        vertices.remove(index);
+        BitSet removed = new BitSet(vertexCount);
+        removed.set(index);
+        removeVertices(removed);
+    }
+
+    public void removeVertices(int[] indices) {
+        BitSet removed = new BitSet(vertexCount);
+        for (int index : indices) {
+            if (index < 0 || index >= vertexCount) {
+                throw new IllegalArgumentException("Invalid vertex index: " + index);
+            }
+            removed.set(index);
+        }
+        removeVertices(removed);
+    }
+
+    // Удаляет отмеченные вершины и полигоны, которые их используют. Таблица перенумерации
+    // строится один раз, индексы оставшихся полигонов переписываются за один проход.
+    // Если индекс смежности построен, затронутые полигоны берутся из него, а не поиском
+    public void removeVertices(BitSet removed) {
+        if (removed.length() > vertexCount) {
+            throw new IllegalArgumentException("Invalid vertex index: " + (removed.length() - 1));
+        }
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        ownPositions();
+        ownFaces();
+        BitSet dropped = null;
+        if (adjacency != null) {
+            dropped = new BitSet(polygonCount);
+            for (int v = removed.nextSetBit(0); v >= 0; v = removed.nextSetBit(v + 1)) {
+                for (int p : adjacency.facesOf(v)) {
+                    dropped.set(p);
+                }
+            }
+        }
+        int[] remap = new int[vertexCount];
+        int kept = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            if (removed.get(v)) {
+                remap[v] = -1;
+                continue;
+            }
+            remap[v] = kept;
+            if (kept != v) {
+                System.arraycopy(positions, 3 * v, positions, 3 * kept, 3);
+            }
+            kept++;
+        }
+        vertexCount = kept;
+        bounds = null;
+
+        int[] faceRemap = adjacency != null ? new int[polygonCount] : null;
+        int write = 0;
+        int writeFace = 0;
+        for (int p = 0; p < polygonCount; p++) {
+            int from = faceOffsets[p];
+            int to = faceOffsets[p + 1];
+            if (dropped != null ? dropped.get(p) : usesRemoved(remap, from, to)) {
+                if (faceRemap != null) faceRemap[p] = -1;
+                possibleGarbage += to - from;
+                continue;
+            }
 
-        polygons.removeIf(p -> p.getVertexIndices().contains(index));
+            if (faceRemap != null) faceRemap[p] = writeFace;
+            faceOffsets[writeFace] = write;
+            faceFlags[writeFace] = faceFlags[p];
+            for (int k = from; k < to; k++) {
+                faceVertices[write] = remap[faceVertices[k]];
+                faceTextures[write] = faceTextures[k];
+                faceNormals[write] = faceNormals[k];
+                write++;
+            }
+            writeFace++;
+        }
+        polygonCount = writeFace;
+        faceOffsets[polygonCount] = write;
+        edgeIndex = null;
+        bvh = null;
+        if (adjacency != null) {
+            adjacency.remap(remap, faceRemap);
+        }
+        compactIfNeeded();
+    }
 
-        for (Polygon p : polygons) {
-            p.decrementVertexIndicesGreaterThan(index);
+    private boolean usesRemoved(int[] remap, int from, int to) {
+        for (int k = from; k < to; k++) {
+            if (remap[faceVertices[k]] < 0) {
+                return true;
+            }
         }
+        return false;
     }
 
     public void removePolygon(int index) {
-        if (index < 0 || index >= polygons.size()) {
+        if (index < 0 || index >= polygonCount) {
             throw new IllegalArgumentException("Invalid polygon index: " + index);
         }
-        polygons.remove(index);
+        ownFaces();
+        int from = faceOffsets[index];
+        int to = faceOffsets[index + 1];
+        int tail = faceOffsets[polygonCount] - to;
+        System.arraycopy(faceVertices, to, faceVertices, from, tail);
+        System.arraycopy(faceTextures, to, faceTextures, from, tail);
+        System.arraycopy(faceNormals, to, faceNormals, from, tail);
+        System.arraycopy(faceFlags, index + 1, faceFlags, index, polygonCount - index - 1);
+        int length = to - from;
+        for (int p = index + 1; p <= polygonCount; p++) {
+            faceOffsets[p - 1] = faceOffsets[p] - length;
+        }
+        if (adjacency != null) {
+            int[] faceRemap = new int[polygonCount];
+            for (int p = 0; p < polygonCount; p++) {
+                faceRemap[p] = p < index ? p : p == index ? -1 : p - 1;
+            }
+            adjacency.remap(null, faceRemap);
+        }
+        polygonCount--;
+        edgeIndex = null;
+        bvh = null;
+        possibleGarbage += length;
+        compactIfNeeded();
+    }
+
+    public void removePolygons(int[] indices) {
+        BitSet removed = new BitSet(polygonCount);
+        for (int index : indices) {
+            if (index < 0 || index >= polygonCount) {
+                throw new IllegalArgumentException("Invalid polygon index: " + index);
+            }
+            removed.set(index);
+        }
+        removePolygons(removed);
+    }
+
+    // Удаляет отмеченные полигоны, сдвигая оставшиеся за один проход
+    public void removePolygons(BitSet removed) {
+        if (removed.length() > polygonCount) {
+            throw new IllegalArgumentException("Invalid polygon index: " + (removed.length() - 1));
+        }
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        ownFaces();
+        int[] faceRemap = adjacency != null ? new int[polygonCount] : null;
+        int write = 0;
+        int writeFace = 0;
+        for (int p = 0; p < polygonCount; p++) {
+            if (removed.get(p)) {
+                if (faceRemap != null) faceRemap[p] = -1;
+                possibleGarbage += faceOffsets[p + 1] - faceOffsets[p];
+                continue;
+            }
+            if (faceRemap != null) faceRemap[p] = writeFace;
+            int from = faceOffsets[p];
+            int length = faceOffsets[p + 1] - from;
+            faceOffsets[writeFace] = write;
+            faceFlags[writeFace] = faceFlags[p];
+            if (write != from) {
+                System.arraycopy(faceVertices, from, faceVertices, write, length);
+                System.arraycopy(faceTextures, from, faceTextures, write, length);
+                System.arraycopy(faceNormals, from, faceNormals, write, length);
+            }
+            write += length;
+            writeFace++;
+        }
+        polygonCount = writeFace;
+        faceOffsets[polygonCount] = write;
+        edgeIndex = null;
+        bvh = null;
+        if (adjacency != null) {
+            adjacency.remap(null, faceRemap);
+        }
+        compactIfNeeded();
+    }
+
+    // Сливает вершины, совпадающие с точностью tolerance по каждой координате, и
+    // переписывает индексы полигонов. При attributes так же сливаются текстурные
+    // координаты и нормали. Массивы обрезаются до нового размера. Возвращает объём слитых
+    // дубликатов в байтах; запас ёмкости, срезанный обрезкой, в него не входит
+    public long weld(float tolerance, boolean attributes) {
+        if (!(tolerance >= 0) || Float.isInfinite(tolerance)) {
+            throw new IllegalArgumentException("Invalid weld tolerance: " + tolerance);
+        }
+        long mergedFloats = 0;
+
+        int[] vertexRemap = VertexWelder.weld(positions, 3, vertexCount, tolerance);
+        int[] textureRemap = attributes
+                ? VertexWelder.weld(textureCoords, 2, textureVertexCount, tolerance) : null;
+        int[] normalRemap = attributes
+                ? VertexWelder.weld(normalCoords, 3, normalCount, tolerance) : null;
+
+        int vertices = compactedCount(vertexRemap);
+        mergedFloats += 3L * (vertexCount - vertices);
+        positions = compact(positions, 3, vertexCount, vertexRemap, vertices);
+        positionsShared = false;
+        vertexCount = vertices;
+        if (textureRemap != null) {
+            int textures = compactedCount(textureRemap);
+            mergedFloats += 2L * (textureVertexCount - textures);
+            textureCoords = compact(textureCoords, 2, textureVertexCount, textureRemap, textures);
+            texturesShared = false;
+            textureVertexCount = textures;
+        }
+        if (normalRemap != null) {
+            int normals = compactedCount(normalRemap);
+            mergedFloats += 3L * (normalCount - normals);
+            normalCoords = compact(normalCoords, 3, normalCount, normalRemap, normals);
+            normalsShared = false;
+            normalCount = normals;
+        }
+
+        ownFaces();
+        int references = faceOffsets[polygonCount];
+        IntStream range = IntStream.range(0, references);
+        if (references >= PARALLEL_REMAP_THRESHOLD) {
+            range = range.parallel();
+        }
+        range.forEach(k -> {
+            faceVertices[k] = vertexRemap[faceVertices[k]];
+            if (textureRemap != null && faceTextures[k] >= 0) {
+                faceTextures[k] = textureRemap[faceTextures[k]];
+            }
+            if (normalRemap != null && faceNormals[k] >= 0) {
+                faceNormals[k] = normalRemap[faceNormals[k]];
+            }
+        });
+        edgeIndex = null;
+        bvh = null;
+        adjacency = null;
+        bounds = null;
+
+        return mergedFloats * Float.BYTES;
+    }
+
+    private static int compactedCount(int[] remap) {
+        int count = 0;
+        for (int target : remap) {
+            count = Math.max(count, target + 1);
+        }
+        return count;
+    }
+
+    // Представитель каждой группы — её первая точка, она и копируется на новое место
+    private static float[] compact(float[] coords, int dims, int count, int[] remap, int newCount) {
+        float[] result = new float[dims * Math.max(newCount, 1)];
+        int written = 0;
+        for (int i = 0; i < count && written < newCount; i++) {
+            if (remap[i] == written) {
+                System.arraycopy(coords, dims * i, result, dims * written, dims);
+                written++;
+            }
+        }
+        return result;
+    }
+
+    public float getAutoCompactThreshold() {
+        return autoCompactThreshold;
+    }
+
+    // Сжимать модель после удалений, когда мусор может превысить эту долю от числа
+    // вершин, текстурных координат и нормалей; 0 — только явный вызов compact()
+    public void setAutoCompactThreshold(float threshold) {
+        if (!(threshold >= 0)) {
+            throw new IllegalArgumentException("Invalid auto compact threshold: " + threshold);
+        }
+        this.autoCompactThreshold = threshold;
+    }
+
+    // Оценка растёт не быстрее числа удалённых углов, поэтому сжатие (линейный проход)
+    // происходит не чаще чем раз на threshold * size удалённых углов
+    private void compactIfNeeded() {
+        if (autoCompactThreshold > 0
+                && possibleGarbage > autoCompactThreshold * (vertexCount + textureVertexCount + normalCount)) {
+            compact();
+        }
+    }
+
+    // Удаляет вершины, текстурные координаты и нормали, на которые не ссылается ни один
+    // полигон, и перенумеровывает индексы полигонов за один проход; возвращает число
+    // удалённых элементов. Индекс вне диапазона — IllegalArgumentException с тем же
+    // текстом, что у ObjWriter; модель при этом не меняется
+    public int compact() {
+        int references = faceOffsets[polygonCount];
+        int[] vertexRemap = new int[vertexCount];
+        int[] textureRemap = new int[textureVertexCount];
+        int[] normalRemap = new int[normalCount];
+        for (int p = 0; p < polygonCount; p++) {
+            for (int k = faceOffsets[p]; k < faceOffsets[p + 1]; k++) {
+                int v = faceVertices[k], t = faceTextures[k], n = faceNormals[k];
+                if (v < 0 || v >= vertexCount) {
+                    throw new IllegalArgumentException("Polygon #" + (p + 1) + " has invalid vertex index: " + v);
+                }
+                if (t < -1 || t >= textureVertexCount) {
+                    throw new IllegalArgumentException("Polygon #" + (p + 1) + " invalid tex index: " + t);
+                }
+                if (n < -1 || n >= normalCount) {
+                    throw new IllegalArgumentException("Polygon #" + (p + 1) + " invalid normal index: " + n);
+                }
+                vertexRemap[v] = 1;
+                if (t >= 0) textureRemap[t] = 1;
+                if (n >= 0) normalRemap[n] = 1;
+            }
+        }
+        possibleGarbage = 0;
+        int vertices = usedToRemap(vertexRemap);
+        int textures = usedToRemap(textureRemap);
+        int normals = usedToRemap(normalRemap);
+        int removed = vertexCount - vertices + textureVertexCount - textures + normalCount - normals;
+        if (removed == 0) {
+            return 0;
+        }
+
+        if (vertices != vertexCount) {
+            ownPositions();
+            compactInPlace(positions, 3, vertexCount, vertexRemap);
+            vertexCount = vertices;
+            bounds = null;
+        }
+        if (textures != textureVertexCount) {
+            ownTextures();
+            compactInPlace(textureCoords, 2, textureVertexCount, textureRemap);
+            textureVertexCount = textures;
+        }
+        if (normals != normalCount) {
+            ownNormals();
+            compactInPlace(normalCoords, 3, normalCount, normalRemap);
+            normalCount = normals;
+        }
+
+        ownFaces();
+        for (int k = 0; k < references; k++) {
+            faceVertices[k] = vertexRemap[faceVertices[k]];
+            if (faceTextures[k] >= 0) faceTextures[k] = textureRemap[faceTextures[k]];
+            if (faceNormals[k] >= 0) faceNormals[k] = normalRemap[faceNormals[k]];
+        }
+        edgeIndex = null;
+        bvh = null;
+        if (adjacency != null) {
+            adjacency.remap(vertexRemap, null);
+        }
+        return removed;
+    }
+
+    // Отметки использования (1/0) превращаются в новые индексы и -1; возвращает новое число
+    private static int usedToRemap(int[] marks) {
+        int next = 0;
+        for (int i = 0; i < marks.length; i++) {
+            marks[i] = marks[i] != 0 ? next++ : -1;
+        }
+        return next;
+    }
+
+    private static void compactInPlace(float[] coords, int dims, int count, int[] remap) {
+        for (int i = 0; i < count; i++) {
+            int target = remap[i];
+            if (target >= 0 && target != i) {
+                System.arraycopy(coords, dims * i, coords, dims * target, dims);
+            }
+        }
+    }
+
+    // Переносит преобразование в координаты вершин (точка — строка, p * M, как при рендере).
+    // Нормали умножаются на обратную транспонированную линейную часть и нормируются;
+    // при вырожденной матрице остаются как были. pool — пул рендера; null — в текущем потоке
+    public void applyTransform(Matrix4f transform, ForkJoinPool pool) {
+        if (transform == null) {
+            throw new IllegalArgumentException("Transform must not be null");
+        }
+        ownPositions();
+        BulkTransform.transformPoints(transform, positions, positions, vertexCount, pool);
+        bounds = null;
+        bvh = null;
+
+        if (normalCount == 0) {
+            return;
+        }
+        Matrix4f normalMatrix = new Matrix4f(transform);
+        for (int i = 0; i < 3; i++) {
+            normalMatrix.set(i, 3, 0);
+            normalMatrix.set(3, i, 0);
+        }
+        normalMatrix.set(3, 3, 1);
+        try {
+            normalMatrix.invert();
+        } catch (ArithmeticException e) {
+            return;
+        }
+        normalMatrix.transpose();
+        ownNormals();
+        float[] normals = normalCoords;
+        BulkTransform.forEachRange(pool, normalCount, (from, to) -> {
+            BulkTransform.transformPoints(normalMatrix, normals, normals, from, to);
+            for (int i = from; i < to; i++) {
+                float x = normals[3 * i], y = normals[3 * i + 1], z = normals[3 * i + 2];
+                float length = (float) Math.sqrt(x * x + y * y + z * z);
+                if (length > 0) {
+                    normals[3 * i] = x / length;
+                    normals[3 * i + 1] = y / length;
+                    normals[3 * i + 2] = z / length;
+                }
+            }
+        });
     }
 
     public Matrix4f getModelMatrix() {
         return modelMatrix;
     }
 
+    // Дешёвая копия: массивы не копируются, а становятся общими до первого изменения
+    // любой из двух моделей. Кэши рёбер и границ неизменяемы и тоже переиспользуются
+    public Model snapshot() {
+        Model copy = new Model();
+        copy.positions = positions;
+        copy.vertexCount = vertexCount;
+        copy.textureCoords = textureCoords;
+        copy.textureVertexCount = textureVertexCount;
+        copy.normalCoords = normalCoords;
+        copy.normalCount = normalCount;
+
+        copy.faceOffsets = faceOffsets;
+        copy.faceVertices = faceVertices;
+        copy.faceTextures = faceTextures;
+        copy.faceNormals = faceNormals;
+        copy.faceFlags = faceFlags;
+        copy.polygonCount = polygonCount;
+
+        copy.edgeIndex = edgeIndex;
+        copy.bvh = bvh;
+        copy.bounds = bounds;
+        copy.autoCompactThreshold = autoCompactThreshold;
+        copy.possibleGarbage = possibleGarbage;
+        copy.modelMatrix = new Matrix4f(modelMatrix);
+
+        positionsShared = texturesShared = normalsShared = facesShared = true;
+        copy.positionsShared = copy.texturesShared = copy.normalsShared = copy.facesShared = true;
+        return copy;
+    }
+
     // Метод для клонирования модели
     public Model clone() {
-        Model clonedModel = new Model();
-        clonedModel.vertices.addAll(this.vertices);
-        clonedModel.textureVertices.addAll(this.textureVertices);
-        clonedModel.normals.addAll(this.normals);
+        return snapshot();
+    }
 
-        // Клонируем полигоны
-        for (Polygon polygon : this.polygons) {
-            clonedModel.polygons.add(polygon.copy());
+    private void ownPositions() {
+        if (positionsShared) {
+            positions = positions.clone();
+            positionsShared = false;
         }
+    }
 
-        clonedModel.modelMatrix = new Matrix4f(this.modelMatrix);
-        return clonedModel;
+    private void ownTextures() {
+        if (texturesShared) {
+            textureCoords = textureCoords.clone();
+            texturesShared = false;
+        }
+    }
+
+    private void ownNormals() {
+        if (normalsShared) {
+            normalCoords = normalCoords.clone();
+            normalsShared = false;
+        }
+    }
+
+    private void ownFaces() {
+        if (facesShared) {
+            faceOffsets = faceOffsets.clone();
+            faceVertices = faceVertices.clone();
+            faceTextures = faceTextures.clone();
+            faceNormals = faceNormals.clone();
+            faceFlags = faceFlags.clone();
+            facesShared = false;
+        }
     }
 
     @Override
     public String toString() {
         return "Model{" +
-                "vertices=" + vertices.size() +
-                ", texCoords=" + textureVertices.size() +
-                ", normals=" + normals.size() +
-                ", polygons=" + polygons.size() +
+                "vertices=" + vertexCount +
+                ", texCoords=" + textureVertexCount +
+                ", normals=" + normalCount +
+                ", polygons=" + polygonCount +
                 '}';
     }
 }
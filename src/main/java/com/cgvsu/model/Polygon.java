@@ -1,78 +1,143 @@
 package com.cgvsu.model;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Polygon {
 
-    private List<Integer> vertexIndices = new ArrayList<>();
-    private List<Integer> textureVertexIndices = new ArrayList<>();
-    private List<Integer> normalIndices = new ArrayList<>();
+    // Индексы хранятся в растущих int[] без упаковки в Integer
+    private int[] vertexIndices;
+    private int vertexCount;
+    private int[] textureVertexIndices;
+    private int textureVertexCount;
+    private int[] normalIndices;
+    private int normalCount;
 
     // Добавление одной вершины (самый удобный способ при парсинге)
     public void addVertex(int vertexIndex) {
-        vertexIndices.add(vertexIndex);
+        vertexIndices = ensureCapacity(vertexIndices, vertexCount + 1);
+        vertexIndices[vertexCount++] = vertexIndex;
     }
 
     public void addTextureVertex(int textureIndex) {
-        textureVertexIndices.add(textureIndex);
+        textureVertexIndices = ensureCapacity(textureVertexIndices, textureVertexCount + 1);
+        textureVertexIndices[textureVertexCount++] = textureIndex;
     }
 
     public void addNormal(int normalIndex) {
-        normalIndices.add(normalIndex);
+        normalIndices = ensureCapacity(normalIndices, normalCount + 1);
+        normalIndices[normalCount++] = normalIndex;
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        if (array.length < size) {
+            return Arrays.copyOf(array, Math.max(size, array.length * 2));
+        }
+        return array;
+    }
+
+    // Доступ без создания объектов
+    public int getVertexIndex(int position) {
+        checkPosition(position, vertexCount);
+        return vertexIndices[position];
+    }
+
+    public int getTextureVertexIndex(int position) {
+        checkPosition(position, textureVertexCount);
+        return textureVertexIndices[position];
+    }
+
+    public int getNormalIndex(int position) {
+        checkPosition(position, normalCount);
+        return normalIndices[position];
+    }
+
+    private static void checkPosition(int position, int count) {
+        if (position < 0 || position >= count) {
+            throw new IndexOutOfBoundsException("Index " + position + " out of bounds for length " + count);
+        }
+    }
+
+    // Копирует индексы вершин в dest начиная с offset
+    public void copyVertexIndices(int[] dest, int offset) {
+        System.arraycopy(vertexIndices, 0, dest, offset, vertexCount);
+    }
+
+    public void copyTextureVertexIndices(int[] dest, int offset) {
+        System.arraycopy(textureVertexIndices, 0, dest, offset, textureVertexCount);
+    }
+
+    public void copyNormalIndices(int[] dest, int offset) {
+        System.arraycopy(normalIndices, 0, dest, offset, normalCount);
     }
 
     // Геттеры — возвращаем неизменяемые представления
     public List<Integer> getVertexIndices() {
-        return Collections.unmodifiableList(vertexIndices);
+        return view(vertexIndices, vertexCount);
     }
 
     public List<Integer> getTextureVertexIndices() {
-        return Collections.unmodifiableList(textureVertexIndices);
+        return view(textureVertexIndices, textureVertexCount);
     }
 
     public List<Integer> getNormalIndices() {
-        return Collections.unmodifiableList(normalIndices);
+        return view(normalIndices, normalCount);
+    }
+
+    private static List<Integer> view(int[] array, int count) {
+        return new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                checkPosition(index, count);
+                return array[index];
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
     }
 
     public int getVertexCount() {
-        return vertexIndices.size();
+        return vertexCount;
+    }
+
+    public int getTextureVertexCount() {
+        return textureVertexCount;
+    }
+
+    public int getNormalCount() {
+        return normalCount;
     }
 
     public boolean hasTextureCoordinates() {
-        return !textureVertexIndices.isEmpty();
+        return textureVertexCount > 0;
     }
 
     public boolean hasNormals() {
-        return !normalIndices.isEmpty();
+        return normalCount > 0;
     }
 
     // Новый метод для сдвига индексов вершин
     public void decrementVertexIndicesGreaterThan(int index) {
-        for (int i = 0; i < vertexIndices.size(); i++) {
-            int vi = vertexIndices.get(i);
-            if (vi > index) {
-                vertexIndices.set(i, vi - 1);
-            }
-        }
+        decrementGreaterThan(vertexIndices, vertexCount, index);
     }
 
     // Аналогично для текстур и нормалей, если нужно (пока только для вершин)
     public void decrementTextureIndicesGreaterThan(int index) {
-        for (int i = 0; i < textureVertexIndices.size(); i++) {
-            int ti = textureVertexIndices.get(i);
-            if (ti > index) {
-                textureVertexIndices.set(i, ti - 1);
-            }
-        }
+        decrementGreaterThan(textureVertexIndices, textureVertexCount, index);
     }
 
     public void decrementNormalIndicesGreaterThan(int index) {
-        for (int i = 0; i < normalIndices.size(); i++) {
-            int ni = normalIndices.get(i);
-            if (ni > index) {
-                normalIndices.set(i, ni - 1);
+        decrementGreaterThan(normalIndices, normalCount, index);
+    }
+
+    private static void decrementGreaterThan(int[] array, int count, int index) {
+        for (int i = 0; i < count; i++) {
+            if (array[i] > index) {
+                array[i]--;
             }
         }
     }
@@ -80,23 +145,36 @@ public class Polygon {
     @Override
     public String toString() {
         return "Polygon{" +
-                "vertices=" + vertexIndices +
-                ", tex=" + (hasTextureCoordinates() ? textureVertexIndices : "[]") +
-                ", normals=" + (hasNormals() ? normalIndices : "[]") +
+                "vertices=" + getVertexIndices() +
+                ", tex=" + getTextureVertexIndices() +
+                ", normals=" + getNormalIndices() +
                 '}';
     }
-    public Polygon copy(){
-        return new Polygon(getVertexIndices(), getTextureVertexIndices(), getNormalIndices());
+
+    public Polygon copy() {
+        return new Polygon(
+                Arrays.copyOf(vertexIndices, vertexCount),
+                Arrays.copyOf(textureVertexIndices, textureVertexCount),
+                Arrays.copyOf(normalIndices, normalCount));
     }
-    private Polygon(List<Integer> vertexIndices, List<Integer> textureVertexIndices, List<Integer> normalIndices){
+
+    // Массивы не копируются: полигон забирает их себе
+    Polygon(int[] vertexIndices, int[] textureVertexIndices, int[] normalIndices) {
         this.vertexIndices = vertexIndices;
+        this.vertexCount = vertexIndices.length;
         this.textureVertexIndices = textureVertexIndices;
+        this.textureVertexCount = textureVertexIndices.length;
         this.normalIndices = normalIndices;
+        this.normalCount = normalIndices.length;
     }
-    public Polygon(){
-        vertexIndices = new ArrayList<>();
-        textureVertexIndices = new ArrayList<>();
-        normalIndices = new ArrayList<>();
+
+    public Polygon(int[] vertexIndices) {
+        this(Arrays.copyOf(vertexIndices, vertexIndices.length), new int[0], new int[0]);
     }
 
-}
\ No newline at end of file
+    public Polygon() {
+        vertexIndices = new int[4];
+        textureVertexIndices = new int[4];
+        normalIndices = new int[4];
+    }
+}
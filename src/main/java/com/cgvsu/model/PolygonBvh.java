@@ -0,0 +1,238 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+
+// Иерархия ограничивающих параллелепипедов над полигонами модели для пересечения с лучом.
+// Узлы лежат в плоских массивах; порядок полигонов задаёт кривая Мортона
+class PolygonBvh {
+    private static final int LEAF_SIZE = 4;
+    private static final float EPSILON = 1e-7f;
+
+    // Узел n: bounds[6n .. 6n + 5] = minX, minY, minZ, maxX, maxY, maxZ.
+    // Лист: count[n] > 0, полигоны items[first[n] .. first[n] + count[n] - 1];
+    // иначе дети — first[n] и first[n] + 1
+    private final float[] bounds;
+    private final int[] first;
+    private final int[] count;
+    private final int[] items;
+    private int nodeCount;
+
+    private final int[] offsets;
+    private final int[] indices;
+    private final float[] positions;
+
+    private PolygonBvh(int[] offsets, int[] indices, float[] positions, int[] items) {
+        this.offsets = offsets;
+        this.indices = indices;
+        this.positions = positions;
+        this.items = items;
+        int maxNodes = Math.max(1, 2 * items.length - 1);
+        this.bounds = new float[6 * maxNodes];
+        this.first = new int[maxNodes];
+        this.count = new int[maxNodes];
+    }
+
+    // Массивы модели не копируются: при любом изменении модели дерево сбрасывается
+    static PolygonBvh build(int[] offsets, int[] indices, int polygonCount, float[] positions) {
+        // Границы полигонов считаются один раз и нужны только на время сборки
+        float[] boxes = new float[6 * polygonCount];
+        float[] sceneBounds = new float[6];
+        resetBounds(sceneBounds, 0);
+        int usable = 0;
+        for (int p = 0; p < polygonCount; p++) {
+            if (offsets[p + 1] - offsets[p] < 3) continue;
+            usable++;
+            polygonBounds(offsets, indices, positions, p, boxes, 6 * p);
+            for (int axis = 0; axis < 3; axis++) {
+                float center = 0.5f * (boxes[6 * p + axis] + boxes[6 * p + axis + 3]);
+                sceneBounds[axis] = Math.min(sceneBounds[axis], center);
+                sceneBounds[axis + 3] = Math.max(sceneBounds[axis + 3], center);
+            }
+        }
+
+        // Полигоны упорядочиваются по коду Мортона центра: соседние в этом порядке близки
+        // в пространстве, поэтому дерево строится делением диапазонов пополам без выбора медиан
+        long[] keys = new long[usable];
+        int n = 0;
+        for (int p = 0; p < polygonCount; p++) {
+            if (offsets[p + 1] - offsets[p] < 3) continue;
+            long code = 0;
+            for (int axis = 0; axis < 3; axis++) {
+                float extent = sceneBounds[axis + 3] - sceneBounds[axis];
+                float center = 0.5f * (boxes[6 * p + axis] + boxes[6 * p + axis + 3]);
+                int cell = extent > 0 ? (int) Math.min(1023, (center - sceneBounds[axis]) / extent * 1024) : 0;
+                code |= spreadBits(cell) << axis;
+            }
+            keys[n++] = code << 32 | p;
+        }
+        Arrays.sort(keys);
+        int[] items = new int[usable];
+        for (int i = 0; i < usable; i++) {
+            items[i] = (int) keys[i];
+        }
+
+        PolygonBvh bvh = new PolygonBvh(offsets, indices, positions, items);
+        bvh.nodeCount = 1;
+        bvh.buildNode(0, 0, usable, boxes);
+        return bvh;
+    }
+
+    // Биты 10-битного числа раздвигаются через два: abc -> a00b00c
+    private static long spreadBits(int value) {
+        long x = value & 0x3FF;
+        x = (x | x << 16) & 0x030000FFL;
+        x = (x | x << 8) & 0x0300F00FL;
+        x = (x | x << 4) & 0x030C30C3L;
+        x = (x | x << 2) & 0x09249249L;
+        return x;
+    }
+
+    // Границы узла собираются снизу вверх из границ детей
+    private void buildNode(int node, int from, int to, float[] boxes) {
+        int o = 6 * node;
+        resetBounds(bounds, o);
+        if (to - from <= LEAF_SIZE) {
+            first[node] = from;
+            count[node] = to - from;
+            for (int i = from; i < to; i++) {
+                int p = 6 * items[i];
+                for (int axis = 0; axis < 3; axis++) {
+                    bounds[o + axis] = Math.min(bounds[o + axis], boxes[p + axis]);
+                    bounds[o + axis + 3] = Math.max(bounds[o + axis + 3], boxes[p + axis + 3]);
+                }
+            }
+            return;
+        }
+
+        int left = nodeCount;
+        nodeCount += 2;
+        first[node] = left;
+        count[node] = 0;
+        int mid = (from + to) >>> 1;
+        buildNode(left, from, mid, boxes);
+        buildNode(left + 1, mid, to, boxes);
+        int l = 6 * left;
+        int r = 6 * (left + 1);
+        for (int axis = 0; axis < 3; axis++) {
+            bounds[o + axis] = Math.min(bounds[l + axis], bounds[r + axis]);
+            bounds[o + axis + 3] = Math.max(bounds[l + axis + 3], bounds[r + axis + 3]);
+        }
+    }
+
+    private static void resetBounds(float[] box, int o) {
+        for (int axis = 0; axis < 3; axis++) {
+            box[o + axis] = Float.POSITIVE_INFINITY;
+            box[o + axis + 3] = Float.NEGATIVE_INFINITY;
+        }
+    }
+
+    private static void polygonBounds(int[] offsets, int[] indices, float[] positions, int p, float[] box, int o) {
+        resetBounds(box, o);
+        for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+            int v = 3 * indices[k];
+            for (int axis = 0; axis < 3; axis++) {
+                box[o + axis] = Math.min(box[o + axis], positions[v + axis]);
+                box[o + axis + 3] = Math.max(box[o + axis + 3], positions[v + axis]);
+            }
+        }
+    }
+
+    // Ближайшее пересечение луча origin + t * direction (t >= 0) с полигонами.
+    // В hit[0] пишется t; возвращает индекс полигона или -1
+    int raycast(float ox, float oy, float oz, float dx, float dy, float dz, float[] hit) {
+        if (items.length == 0) {
+            return -1;
+        }
+        float ix = 1.0f / dx;
+        float iy = 1.0f / dy;
+        float iz = 1.0f / dz;
+        float best = Float.POSITIVE_INFINITY;
+        int bestPolygon = -1;
+
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (!hitsBox(node, ox, oy, oz, ix, iy, iz, best)) continue;
+            if (count[node] == 0) {
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = first[node];
+                stack[top++] = first[node] + 1;
+                continue;
+            }
+            for (int i = first[node]; i < first[node] + count[node]; i++) {
+                float t = intersectPolygon(items[i], ox, oy, oz, dx, dy, dz);
+                if (t < best) {
+                    best = t;
+                    bestPolygon = items[i];
+                }
+            }
+        }
+        hit[0] = best;
+        return bestPolygon;
+    }
+
+    // Пересечение луча с параллелепипедом узла методом плит на отрезке [0, limit].
+    // При нулевой компоненте направления обратная равна бесконечности, и для начала луча
+    // на грани плиты (bounds - o) * inv даёт 0 * Infinity = NaN, который Math.min/max
+    // протаскивают дальше. Поэтому луч, параллельный плитам, проверяется отдельно
+    private boolean hitsBox(int node, float ox, float oy, float oz, float ix, float iy, float iz, float limit) {
+        int o = 6 * node;
+        float t0 = 0;
+        float t1 = limit;
+        if (Float.isInfinite(ix)) {
+            if (ox < bounds[o] || ox > bounds[o + 3]) return false;
+        } else {
+            float a = (bounds[o] - ox) * ix, b = (bounds[o + 3] - ox) * ix;
+            t0 = Math.max(t0, Math.min(a, b));
+            t1 = Math.min(t1, Math.max(a, b));
+        }
+        if (Float.isInfinite(iy)) {
+            if (oy < bounds[o + 1] || oy > bounds[o + 4]) return false;
+        } else {
+            float a = (bounds[o + 1] - oy) * iy, b = (bounds[o + 4] - oy) * iy;
+            t0 = Math.max(t0, Math.min(a, b));
+            t1 = Math.min(t1, Math.max(a, b));
+        }
+        if (Float.isInfinite(iz)) {
+            if (oz < bounds[o + 2] || oz > bounds[o + 5]) return false;
+        } else {
+            float a = (bounds[o + 2] - oz) * iz, b = (bounds[o + 5] - oz) * iz;
+            t0 = Math.max(t0, Math.min(a, b));
+            t1 = Math.min(t1, Math.max(a, b));
+        }
+        return t0 <= t1;
+    }
+
+    // Полигон разбивается веером на треугольники; тест Мёллера — Трумбора с обеих сторон
+    private float intersectPolygon(int p, float ox, float oy, float oz, float dx, float dy, float dz) {
+        int from = offsets[p];
+        int to = offsets[p + 1];
+        int a = 3 * indices[from];
+        float best = Float.POSITIVE_INFINITY;
+        for (int k = from + 1; k + 1 < to; k++) {
+            int b = 3 * indices[k];
+            int c = 3 * indices[k + 1];
+            float e1x = positions[b] - positions[a], e1y = positions[b + 1] - positions[a + 1], e1z = positions[b + 2] - positions[a + 2];
+            float e2x = positions[c] - positions[a], e2y = positions[c + 1] - positions[a + 1], e2z = positions[c + 2] - positions[a + 2];
+            float px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+            float det = e1x * px + e1y * py + e1z * pz;
+            if (Math.abs(det) < EPSILON) continue;
+            float inv = 1.0f / det;
+            float sx = ox - positions[a], sy = oy - positions[a + 1], sz = oz - positions[a + 2];
+            float u = (sx * px + sy * py + sz * pz) * inv;
+            if (u < 0 || u > 1) continue;
+            float qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+            float v = (dx * qx + dy * qy + dz * qz) * inv;
+            if (v < 0 || u + v > 1) continue;
+            float t = (e2x * qx + e2y * qy + e2z * qz) * inv;
+            if (t >= 0 && t < best) {
+                best = t;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,29 @@
+package com.cgvsu.model;
+
+// Результат пересечения луча с моделью
+public class RayHit {
+    private final int polygonIndex;
+    private final int vertexIndex;
+    private final float distance;
+
+    public RayHit(int polygonIndex, int vertexIndex, float distance) {
+        this.polygonIndex = polygonIndex;
+        this.vertexIndex = vertexIndex;
+        this.distance = distance;
+    }
+
+    public int getPolygonIndex() {
+        return polygonIndex;
+    }
+
+    // Вершина попавшего полигона, ближайшая к точке пересечения
+    public int getVertexIndex() {
+        return vertexIndex;
+    }
+
+    // Параметр t луча origin + t * direction; при одинаковом мировом луче сравним между
+    // моделями, так как аффинное преобразование его не меняет
+    public float getDistance() {
+        return distance;
+    }
+}
@@ -1,18 +1,45 @@
 package com.cgvsu.model;
 
-import com.cgvsu.AffineTransformation;
 import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Quaternion;
 import com.cgvsu.math.Vector3f;
+import com.cgvsu.render_engine.Camera;
 
+import java.util.concurrent.ForkJoinPool;
+
+// Положение объекта хранится разложенным: масштаб, поворот кватернионом и перенос.
+// Матрица собирается из них только при чтении после изменения, поэтому серия
+// преобразований не копит погрешность в перемножении матриц 4x4.
+// В соглашении конвейера (точка — строка слева) матрица равна S * R * T:
+// сначала масштаб по осям модели, затем поворот вокруг начала координат модели, затем перенос
 public class SceneObject {
+    // Допуск на ортогональность строк и аффинность при разложении матрицы
+    private static final float DECOMPOSE_EPS = 1e-4f;
+
     private Model model;
     private final String name;
-    private Matrix4f transformMatrix;
+
+    private final Vector3f translation = new Vector3f(0, 0, 0);
+    private final Quaternion rotation = new Quaternion();
+    private final Vector3f scale = new Vector3f(1, 1, 1);
+
+    private final Matrix4f transformMatrix = Matrix4f.identity();
+    private final Matrix4f inverseMatrix = Matrix4f.identity();
+    private final float[] rotationRows = new float[9];
+    private boolean transformDirty;
+    private boolean inverseDirty;
+    // Растёт при каждой смене положения объекта
+    private int transformVersion;
+
+    // MVP последнего запроса и версии, по которым она посчитана
+    private final Matrix4f mvp = new Matrix4f();
+    private Camera mvpCamera;
+    private int mvpCameraVersion;
+    private int mvpTransformVersion;
 
     public SceneObject(Model model, String name) {
         this.model = model;
         this.name = name;
-        this.transformMatrix = Matrix4f.identity();
     }
 
     public Model getModel() {
@@ -27,37 +54,217 @@ public class SceneObject {
         return name;
     }
 
+    public Vector3f getTranslation() {
+        return new Vector3f(translation);
+    }
+
+    public Quaternion getRotation() {
+        return new Quaternion(rotation);
+    }
+
+    public Vector3f getScale() {
+        return new Vector3f(scale);
+    }
+
+    public void setTranslation(float tx, float ty, float tz) {
+        translation.set(tx, ty, tz);
+        changed();
+    }
+
+    public void setRotation(Quaternion rotation) {
+        if (rotation == null) throw new IllegalArgumentException("Rotation must not be null");
+        this.rotation.x = rotation.x;
+        this.rotation.y = rotation.y;
+        this.rotation.z = rotation.z;
+        this.rotation.w = rotation.w;
+        this.rotation.normalize();
+        changed();
+    }
+
+    public void setScale(float sx, float sy, float sz) {
+        scale.set(sx, sy, sz);
+        changed();
+    }
+
+    public void resetTransform() {
+        translation.set(0, 0, 0);
+        rotation.x = rotation.y = rotation.z = 0;
+        rotation.w = 1;
+        scale.set(1, 1, 1);
+        changed();
+    }
+
+    // Матрица общая и собирается заново после изменений — менять её на месте нельзя
     public Matrix4f getTransform() {
+        if (transformDirty) {
+            compose();
+        }
         return transformMatrix;
     }
 
-    public void setTransform(Matrix4f transformMatrix) {
-        this.transformMatrix = transformMatrix;
+    // Обратная матрица без общего обращения 4x4: (S R T)^-1 = T^-1 R^T S^-1.
+    // ArithmeticException при нулевом масштабе, как у Matrix4f.inverted
+    public Matrix4f getInverseTransform() {
+        if (inverseDirty) {
+            if (scale.x == 0 || scale.y == 0 || scale.z == 0) {
+                throw new ArithmeticException("Matrix is singular and cannot be inverted");
+            }
+            if (transformDirty) {
+                compose();
+            }
+            float[] r = rotationRows;
+            float isx = 1 / scale.x, isy = 1 / scale.y, isz = 1 / scale.z;
+            float tx = translation.x, ty = translation.y, tz = translation.z;
+            inverseMatrix.set(0, 0, r[0] * isx);
+            inverseMatrix.set(0, 1, r[3] * isy);
+            inverseMatrix.set(0, 2, r[6] * isz);
+            inverseMatrix.set(0, 3, 0);
+            inverseMatrix.set(1, 0, r[1] * isx);
+            inverseMatrix.set(1, 1, r[4] * isy);
+            inverseMatrix.set(1, 2, r[7] * isz);
+            inverseMatrix.set(1, 3, 0);
+            inverseMatrix.set(2, 0, r[2] * isx);
+            inverseMatrix.set(2, 1, r[5] * isy);
+            inverseMatrix.set(2, 2, r[8] * isz);
+            inverseMatrix.set(2, 3, 0);
+            inverseMatrix.set(3, 0, -(tx * r[0] + ty * r[1] + tz * r[2]) * isx);
+            inverseMatrix.set(3, 1, -(tx * r[3] + ty * r[4] + tz * r[5]) * isy);
+            inverseMatrix.set(3, 2, -(tx * r[6] + ty * r[7] + tz * r[8]) * isz);
+            inverseMatrix.set(3, 3, 1);
+            inverseDirty = false;
+        }
+        return inverseMatrix;
     }
 
-    // Применение масштабирования
+    // Копия модели с запечённым положением объекта: координаты такие, какими модель видна
+    // на сцене. Сама модель не меняется — копия делит с ней массивы до первой записи
+    public Model toTransformedModel(ForkJoinPool pool) {
+        Model copy = model.snapshot();
+        copy.applyTransform(getTransform(), pool);
+        return copy;
+    }
+
+    // Раскладывает аффинную матрицу на масштаб, поворот и перенос. Строки линейной части
+    // должны быть попарно ортогональны: перекос и проективную часть в таком виде не хранят,
+    // для них IllegalArgumentException. Отражение уходит в знак масштаба по X
+    public void setTransform(Matrix4f transform) {
+        if (transform == null) throw new IllegalArgumentException("Transform must not be null");
+        Matrix4f m = transform;
+        if (Math.abs(m.get(0, 3)) > DECOMPOSE_EPS || Math.abs(m.get(1, 3)) > DECOMPOSE_EPS
+                || Math.abs(m.get(2, 3)) > DECOMPOSE_EPS || Math.abs(m.get(3, 3) - 1) > DECOMPOSE_EPS) {
+            throw new IllegalArgumentException("Transform is not affine");
+        }
+        float[] r = new float[9];
+        float[] s = new float[3];
+        for (int row = 0; row < 3; row++) {
+            float x = m.get(row, 0), y = m.get(row, 1), z = m.get(row, 2);
+            s[row] = (float) Math.sqrt(x * x + y * y + z * z);
+            if (s[row] == 0) {
+                throw new IllegalArgumentException("Transform has zero scale and cannot be decomposed");
+            }
+            r[3 * row] = x / s[row];
+            r[3 * row + 1] = y / s[row];
+            r[3 * row + 2] = z / s[row];
+        }
+        if (Math.abs(r[0] * r[3] + r[1] * r[4] + r[2] * r[5]) > DECOMPOSE_EPS
+                || Math.abs(r[0] * r[6] + r[1] * r[7] + r[2] * r[8]) > DECOMPOSE_EPS
+                || Math.abs(r[3] * r[6] + r[4] * r[7] + r[5] * r[8]) > DECOMPOSE_EPS) {
+            throw new IllegalArgumentException("Transform contains shear");
+        }
+        // Левая тройка строк: отражение, поворот из неё не получить
+        float det = r[0] * (r[4] * r[8] - r[5] * r[7])
+                - r[1] * (r[3] * r[8] - r[5] * r[6])
+                + r[2] * (r[3] * r[7] - r[4] * r[6]);
+        if (det < 0) {
+            s[0] = -s[0];
+            r[0] = -r[0];
+            r[1] = -r[1];
+            r[2] = -r[2];
+        }
+
+        Quaternion q = Quaternion.fromRotationRows(r);
+        rotation.x = q.x;
+        rotation.y = q.y;
+        rotation.z = q.z;
+        rotation.w = q.w;
+        scale.set(s[0], s[1], s[2]);
+        translation.set(m.get(3, 0), m.get(3, 1), m.get(3, 2));
+        changed();
+    }
+
+    // Дописывает преобразование после текущего (p * M * transformation); результат
+    // раскладывается через setTransform, поэтому перекос даёт IllegalArgumentException
+    public void applyTransformation(Matrix4f transformation) {
+        if (transformation == null) throw new IllegalArgumentException("Transformation must not be null");
+        setTransform(getTransform().multiply(transformation));
+    }
+
+    public int getTransformVersion() {
+        return transformVersion;
+    }
+
+    // transform * view * projection для камеры; пересчитывается, только если с прошлого
+    // вызова изменились камера или положение объекта. Матрица общая — менять её нельзя
+    public Matrix4f getMVP(Camera camera) {
+        if (mvpCamera != camera || mvpCameraVersion != camera.getVersion()
+                || mvpTransformVersion != transformVersion) {
+            getTransform().mulInto(camera.getViewProjectionMatrix(), mvp);
+            mvpCamera = camera;
+            mvpCameraVersion = camera.getVersion();
+            mvpTransformVersion = transformVersion;
+        }
+        return mvp;
+    }
+
+    // Масштабирование вдоль осей модели: объект растягивается на месте, поворот и перенос
+    // не меняются. Масштаб вдоль мировых осей после поворота дал бы перекос
     public void scale(float sx, float sy, float sz) {
-        Matrix4f scaleMatrix = AffineTransformation.scale(sx, sy, sz);
-        transformMatrix = transformMatrix.multiply(scaleMatrix);
+        scale.set(scale.x * sx, scale.y * sy, scale.z * sz);
+        changed();
     }
 
-    // Применение вращения
+    // Поворот в градусах вокруг мировых осей X, затем Y, затем Z; центр поворота — начало
+    // координат модели, поэтому объект поворачивается на месте
     public void rotate(float rx, float ry, float rz) {
-        Matrix4f rotX = AffineTransformation.rotationX((float) Math.toRadians(rx));
-        Matrix4f rotY = AffineTransformation.rotationY((float) Math.toRadians(ry));
-        Matrix4f rotZ = AffineTransformation.rotationZ((float) Math.toRadians(rz));
-        Matrix4f rotationMatrix = rotZ.multiply(rotY).multiply(rotX);
-        transformMatrix = transformMatrix.multiply(rotationMatrix);
+        Quaternion delta = Quaternion.fromEuler(
+                (float) Math.toRadians(rx), (float) Math.toRadians(ry), (float) Math.toRadians(rz));
+        Quaternion result = delta.multiply(rotation);
+        result.normalize();
+        setRotation(result);
     }
 
-    // Применение переноса
+    // Перенос в мировых координатах
     public void translate(float tx, float ty, float tz) {
-        Matrix4f translationMatrix = AffineTransformation.translation(tx, ty, tz);
-        transformMatrix = transformMatrix.multiply(translationMatrix);
+        translation.set(translation.x + tx, translation.y + ty, translation.z + tz);
+        changed();
     }
 
-    // Применение произвольного аффинного преобразования
-    public void applyTransformation(Matrix4f transformation) {
-        transformMatrix = transformMatrix.multiply(transformation);
+    private void changed() {
+        transformDirty = true;
+        inverseDirty = true;
+        transformVersion++;
+    }
+
+    private void compose() {
+        rotation.toRotationRows(rotationRows);
+        float[] r = rotationRows;
+        float sx = scale.x, sy = scale.y, sz = scale.z;
+        transformMatrix.set(0, 0, r[0] * sx);
+        transformMatrix.set(0, 1, r[1] * sx);
+        transformMatrix.set(0, 2, r[2] * sx);
+        transformMatrix.set(0, 3, 0);
+        transformMatrix.set(1, 0, r[3] * sy);
+        transformMatrix.set(1, 1, r[4] * sy);
+        transformMatrix.set(1, 2, r[5] * sy);
+        transformMatrix.set(1, 3, 0);
+        transformMatrix.set(2, 0, r[6] * sz);
+        transformMatrix.set(2, 1, r[7] * sz);
+        transformMatrix.set(2, 2, r[8] * sz);
+        transformMatrix.set(2, 3, 0);
+        transformMatrix.set(3, 0, translation.x);
+        transformMatrix.set(3, 1, translation.y);
+        transformMatrix.set(3, 2, translation.z);
+        transformMatrix.set(3, 3, 1);
+        transformDirty = false;
     }
 }
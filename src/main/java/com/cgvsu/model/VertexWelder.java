@@ -0,0 +1,116 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Поиск совпадающих точек через пространственный хеш: для каждой точки проверяются только
+// ячейки, которые задевает куб с ребром 2 * tolerance вокруг неё. Точки совпадают, если каждая
+// координата отличается не больше чем на tolerance; при tolerance == 0 — только точно
+class VertexWelder {
+    // Ячейки считаются параллельно, начиная с этого числа точек
+    private static final int PARALLEL_THRESHOLD = 100_000;
+
+    // Таблица перенумерации old -> new. Первая точка группы остаётся представителем,
+    // новые индексы идут в порядке первого появления, поэтому remap[i] <= i
+    static int[] weld(float[] coords, int dims, int count, float tolerance) {
+        long[] cells = new long[count * dims];
+        if (count >= PARALLEL_THRESHOLD) {
+            IntStream.range(0, count).parallel().forEach(i -> computeCell(coords, dims, i, tolerance, cells));
+        } else {
+            for (int i = 0; i < count; i++) {
+                computeCell(coords, dims, i, tolerance, cells);
+            }
+        }
+
+        // Цепочки представителей по слотам хеш-таблицы; коллизии только добавляют кандидатов
+        int capacity = Integer.highestOneBit(Math.max(count * 2, 16) - 1) << 1;
+        int mask = capacity - 1;
+        int[] head = new int[capacity];
+        Arrays.fill(head, -1);
+        int[] next = new int[count];
+
+        int[] remap = new int[count];
+        int[] representatives = new int[count];
+        int unique = 0;
+        long[] lo = new long[dims];
+        long[] hi = new long[dims];
+        long[] cell = new long[dims];
+        for (int i = 0; i < count; i++) {
+            // Ячейки, которые задевает куб [p - tolerance, p + tolerance]; обычно одна
+            for (int d = 0; d < dims; d++) {
+                float value = coords[i * dims + d];
+                lo[d] = tolerance > 0 ? cellOf(value - tolerance, tolerance) : cells[i * dims + d];
+                hi[d] = tolerance > 0 ? cellOf(value + tolerance, tolerance) : cells[i * dims + d];
+                cell[d] = lo[d];
+            }
+            int match = -1;
+            while (match < 0) {
+                for (int r = head[slot(cell, 0, dims, mask)]; r >= 0; r = next[r]) {
+                    if (matches(coords, dims, representatives[r], i, tolerance)) {
+                        match = r;
+                        break;
+                    }
+                }
+                if (!advance(cell, lo, hi, dims)) break;
+            }
+            if (match >= 0) {
+                remap[i] = match;
+                continue;
+            }
+            int s = slot(cells, i * dims, dims, mask);
+            representatives[unique] = i;
+            next[unique] = head[s];
+            head[s] = unique;
+            remap[i] = unique++;
+        }
+        return remap;
+    }
+
+    // Ячейка размером 2 * tolerance: дубликат может лежать только в соседней ячейке
+    // со стороны ближайшей к точке границы
+    private static long cellOf(float value, float tolerance) {
+        return (long) Math.floor(value / (2 * tolerance));
+    }
+
+    private static void computeCell(float[] coords, int dims, int i, float tolerance, long[] cells) {
+        for (int d = 0; d < dims; d++) {
+            float value = coords[i * dims + d];
+            cells[i * dims + d] = tolerance > 0
+                    ? cellOf(value, tolerance)
+                    : Float.floatToIntBits(value == 0 ? 0f : value);
+        }
+    }
+
+    // Следующая ячейка прямоугольника [lo, hi] как у многоразрядного счётчика
+    private static boolean advance(long[] cell, long[] lo, long[] hi, int dims) {
+        for (int d = 0; d < dims; d++) {
+            if (cell[d] < hi[d]) {
+                cell[d]++;
+                return true;
+            }
+            cell[d] = lo[d];
+        }
+        return false;
+    }
+
+    private static boolean matches(float[] coords, int dims, int a, int b, float tolerance) {
+        for (int d = 0; d < dims; d++) {
+            if (!(Math.abs(coords[a * dims + d] - coords[b * dims + d]) <= tolerance)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int slot(long[] cells, int from, int dims, int mask) {
+        long h = 0;
+        for (int d = 0; d < dims; d++) {
+            h = (h + cells[from + d]) * 0x9E3779B97F4A7C15L;
+        }
+        // Перемешивание старших битов в младшие: координаты ячеек часто кратны степеням двойки
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -18,6 +18,7 @@ public class ObjReader {
 
     public static Model read(String fileContent) {
         Model model = new Model();
+        FaceReferences references = new FaceReferences();
 
         int lineNumber = 0;
         Scanner scanner = new Scanner(fileContent);
@@ -45,7 +46,9 @@ public class ObjReader {
                         model.addNormal(parseNormal(words, lineNumber));
                         break;
                     case FACE_TOKEN:
-                        model.addPolygon(parseFace(words, lineNumber));
+                        Polygon face = parseFace(words, lineNumber);
+                        references.add(face, lineNumber);
+                        model.addPolygon(face);
                         break;
                     default:
                         // игнорируем неизвестные строки (o, g, s, usemtl, mtllib и т.д.)
@@ -56,9 +59,51 @@ public class ObjReader {
             }
         }
 
+        references.check(model);
         return model;
     }
 
+    // Грань может ссылаться на вершины, объявленные ниже по файлу, поэтому диапазон
+    // проверяется после разбора. Запоминается только наибольший индекс каждого вида
+    // и строка, где он встретился: для сообщения об ошибке этого достаточно
+    private static final class FaceReferences {
+        private int maxVertex = -1, vertexLine;
+        private int maxTexture = -1, textureLine;
+        private int maxNormal = -1, normalLine;
+
+        void add(Polygon face, int line) {
+            for (int j = 0; j < face.getVertexCount(); j++) {
+                if (face.getVertexIndex(j) > maxVertex) {
+                    maxVertex = face.getVertexIndex(j);
+                    vertexLine = line;
+                }
+                if (face.getTextureVertexIndex(j) > maxTexture) {
+                    maxTexture = face.getTextureVertexIndex(j);
+                    textureLine = line;
+                }
+                if (face.getNormalIndex(j) > maxNormal) {
+                    maxNormal = face.getNormalIndex(j);
+                    normalLine = line;
+                }
+            }
+        }
+
+        void check(Model model) {
+            if (maxVertex >= model.getVertexCount()) {
+                throw new ObjReaderException("Vertex index " + (maxVertex + 1) + " is out of range, only "
+                        + model.getVertexCount() + " vertices defined", vertexLine);
+            }
+            if (maxTexture >= model.getTextureVertexCount()) {
+                throw new ObjReaderException("Texture index " + (maxTexture + 1) + " is out of range, only "
+                        + model.getTextureVertexCount() + " texture coordinates defined", textureLine);
+            }
+            if (maxNormal >= model.getNormalCount()) {
+                throw new ObjReaderException("Normal index " + (maxNormal + 1) + " is out of range, only "
+                        + model.getNormalCount() + " normals defined", normalLine);
+            }
+        }
+    }
+
     private static Vector3f parseVertex(ArrayList<String> parts, int line) {
         if (parts.size() < 3) throw new ObjReaderException("Too few vertex components", line);
         try {
@@ -132,6 +177,9 @@ public class ObjReader {
             if (idx == 0) {
                 throw new ObjReaderException("Zero index is not allowed in .obj", line);
             }
+            if (idx < 0) {
+                throw new ObjReaderException("Relative (negative) indices are not supported: " + s, line);
+            }
             // .obj использует индексацию с 1 → преобразуем в 0-based
             return idx - 1;
         } catch (NumberFormatException e) {
@@ -89,27 +89,23 @@ public class ObjWriter {
 
             sb.append("f");
 
-            List<Integer> vIdx = p.getVertexIndices();
-            List<Integer> tIdx = p.getTextureVertexIndices();
-            List<Integer> nIdx = p.getNormalIndices();
-
             boolean hasTex = p.hasTextureCoordinates();
             boolean hasNorm = p.hasNormals();
 
-            for (int j = 0; j < vIdx.size(); j++) {
-                sb.append(" ").append(vIdx.get(j) + 1);  // .obj — индексы с 1
+            for (int j = 0; j < p.getVertexCount(); j++) {
+                sb.append(" ").append(p.getVertexIndex(j) + 1);  // .obj — индексы с 1
 
                 if (hasTex || hasNorm) {
                     sb.append("/");
 
                     if (hasTex) {
-                        int ti = tIdx.get(j);
+                        int ti = p.getTextureVertexIndex(j);
                         sb.append(ti >= 0 ? (ti + 1) : "");
                     }
 
                     if (hasNorm) {
                         sb.append("/");
-                        int ni = nIdx.get(j);
+                        int ni = p.getNormalIndex(j);
                         sb.append(ni >= 0 ? (ni + 1) : "");
                     }
                 }
@@ -170,16 +166,17 @@ public class ObjWriter {
             throw new ObjWriterException("Polygon #" + (polyIndex + 1) + " is null");
         }
 
-        List<Integer> verts = p.getVertexIndices();
-        if (verts == null || verts.isEmpty()) {
+        int n = p.getVertexCount();
+        if (n == 0) {
             throw new ObjWriterException("Polygon #" + (polyIndex + 1) + " has no vertices");
         }
-        if (verts.size() < 3) {
+        if (n < 3) {
             throw new ObjWriterException("Polygon #" + (polyIndex + 1) + " has < 3 vertices");
         }
 
         // Проверка диапазона индексов вершин
-        for (int vi : verts) {
+        for (int j = 0; j < n; j++) {
+            int vi = p.getVertexIndex(j);
             if (vi < 0 || vi >= vertCount) {
                 throw new ObjWriterException(
                         "Polygon #" + (polyIndex + 1) + " has invalid vertex index: " + vi);
@@ -187,13 +184,13 @@ public class ObjWriter {
         }
 
         // Текстуры — если есть, то должны быть у всех или ни у кого (по стандарту лучше у всех)
-        List<Integer> texs = p.getTextureVertexIndices();
-        if (!texs.isEmpty()) {
-            if (texs.size() != verts.size()) {
+        if (p.hasTextureCoordinates()) {
+            if (p.getTextureVertexCount() != n) {
                 throw new ObjWriterException(
                         "Polygon #" + (polyIndex + 1) + ": texture indices count mismatch");
             }
-            for (int ti : texs) {
+            for (int j = 0; j < n; j++) {
+                int ti = p.getTextureVertexIndex(j);
                 if (ti < -1 || ti >= texCount) {  // -1 допустим (отсутствует)
                     throw new ObjWriterException(
                             "Polygon #" + (polyIndex + 1) + " invalid tex index: " + ti);
@@ -202,13 +199,13 @@ public class ObjWriter {
         }
 
         // Нормали — аналогично
-        List<Integer> norms = p.getNormalIndices();
-        if (!norms.isEmpty()) {
-            if (norms.size() != verts.size()) {
+        if (p.hasNormals()) {
+            if (p.getNormalCount() != n) {
                 throw new ObjWriterException(
                         "Polygon #" + (polyIndex + 1) + ": normal indices count mismatch");
             }
-            for (int ni : norms) {
+            for (int j = 0; j < n; j++) {
+                int ni = p.getNormalIndex(j);
                 if (ni < -1 || ni >= normCount) {
                     throw new ObjWriterException(
                             "Polygon #" + (polyIndex + 1) + " invalid normal index: " + ni);
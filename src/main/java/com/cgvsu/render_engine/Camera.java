@@ -3,6 +3,9 @@ package com.cgvsu.render_engine;
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.math.Matrix4f;
 
+// Видовая и проекционная матрицы строятся заново только после изменения камеры:
+// каждый сеттер увеличивает счётчик версии, а кэш помнит версию, по которой собран.
+// Возвращаемые матрицы общие — менять их нельзя
 public class Camera {
     private Vector3f position;
     private Vector3f target;
@@ -11,6 +14,17 @@ public class Camera {
     private float nearPlane;
     private float farPlane;
 
+    private int viewVersion;
+    private int projectionVersion;
+    private int version;
+
+    private Matrix4f viewMatrix;
+    private int cachedViewVersion = -1;
+    private Matrix4f projectionMatrix;
+    private int cachedProjectionVersion = -1;
+    private final Matrix4f viewProjectionMatrix = new Matrix4f();
+    private int cachedViewProjectionVersion = -1;
+
     public Camera(Vector3f position, Vector3f target, float fov, float aspectRatio, float nearPlane, float farPlane) {
         this.position = position;
         this.target = target;
@@ -22,14 +36,21 @@ public class Camera {
 
     public void setPosition(Vector3f position) {
         this.position = position;
+        viewChanged();
     }
 
     public void setTarget(Vector3f target) {
         this.target = target;
+        viewChanged();
     }
 
     public void setAspectRatio(float aspectRatio) {
+        if (this.aspectRatio == aspectRatio) {
+            return;
+        }
         this.aspectRatio = aspectRatio;
+        projectionVersion++;
+        version++;
     }
 
     public Vector3f getPosition() {
@@ -40,19 +61,56 @@ public class Camera {
         return target;
     }
 
+    public float getNearPlane() {
+        return nearPlane;
+    }
+
+    public float getFarPlane() {
+        return farPlane;
+    }
+
     public void movePosition(Vector3f translation) {
         this.position.add(translation);
+        viewChanged();
     }
 
     public void moveTarget(Vector3f translation) {
         this.target.add(translation);
+        viewChanged();
+    }
+
+    // Меняется при любом изменении камеры; по нему объекты сцены проверяют свои MVP
+    public int getVersion() {
+        return version;
     }
 
     public Matrix4f getViewMatrix() {
-        return GraphicConveyor.lookAt(position, target);
+        if (cachedViewVersion != viewVersion) {
+            viewMatrix = GraphicConveyor.lookAt(position, target);
+            cachedViewVersion = viewVersion;
+        }
+        return viewMatrix;
     }
 
     public Matrix4f getProjectionMatrix() {
-        return GraphicConveyor.perspective(fov, aspectRatio, nearPlane, farPlane);
+        if (cachedProjectionVersion != projectionVersion) {
+            projectionMatrix = GraphicConveyor.perspective(fov, aspectRatio, nearPlane, farPlane);
+            cachedProjectionVersion = projectionVersion;
+        }
+        return projectionMatrix;
+    }
+
+    // Произведение view * projection
+    public Matrix4f getViewProjectionMatrix() {
+        if (cachedViewProjectionVersion != version) {
+            getViewMatrix().mulInto(getProjectionMatrix(), viewProjectionMatrix);
+            cachedViewProjectionVersion = version;
+        }
+        return viewProjectionMatrix;
+    }
+
+    private void viewChanged() {
+        viewVersion++;
+        version++;
     }
 }
@@ -0,0 +1,122 @@
+package com.cgvsu.render_engine;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+public class FrameBuffer {
+    private int width;
+    private int height;
+    private int[] colorBuffer = new int[0];
+    // Обратная глубина 1/d: больше — ближе, 0 — пусто
+    private float[] depthBuffer = new float[0];
+    // Идентификаторы примитивов для выбора мышью, 0 — пусто; null, пока буфер выключен
+    private int[] idBuffer;
+    private WritableImage image;
+
+    // Буферы пересоздаются только при изменении размера канваса
+    public void resize(int width, int height) {
+        width = Math.max(width, 1);
+        height = Math.max(height, 1);
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        this.colorBuffer = new int[width * height];
+        this.depthBuffer = new float[width * height];
+        if (idBuffer != null) {
+            this.idBuffer = new int[width * height];
+        }
+        this.image = null;
+    }
+
+    public void setIdBufferEnabled(boolean enabled) {
+        if (!enabled) {
+            idBuffer = null;
+        } else if (idBuffer == null) {
+            idBuffer = new int[width * height];
+        }
+    }
+
+    public boolean isIdBufferEnabled() {
+        return idBuffer != null;
+    }
+
+    public void clear(int argb) {
+        Arrays.fill(colorBuffer, argb);
+    }
+
+    public void clearDepth() {
+        Arrays.fill(depthBuffer, 0.0f);
+    }
+
+    public void clearIds() {
+        if (idBuffer != null) {
+            Arrays.fill(idBuffer, 0);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int[] getColorBuffer() {
+        return colorBuffer;
+    }
+
+    public float[] getDepthBuffer() {
+        return depthBuffer;
+    }
+
+    // null, если буфер идентификаторов выключен
+    public int[] getIdBuffer() {
+        return idBuffer;
+    }
+
+    // 0 вне буфера или при выключенном буфере
+    public int getId(int x, int y) {
+        if (idBuffer == null || x < 0 || x >= width || y < 0 || y >= height) {
+            return 0;
+        }
+        return idBuffer[y * width + x];
+    }
+
+    public int getPixel(int x, int y) {
+        return colorBuffer[y * width + x];
+    }
+
+    public void setPixel(int x, int y, int argb) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return;
+        }
+        colorBuffer[y * width + x] = argb;
+    }
+
+    // Один вызов PixelWriter на кадр вместо тысяч strokeLine
+    public void present(GraphicsContext gc) {
+        if (image == null) {
+            image = new WritableImage(width, height);
+        }
+        image.getPixelWriter().setPixels(
+                0, 0, width, height,
+                PixelFormat.getIntArgbPreInstance(),
+                colorBuffer, 0, width);
+        gc.drawImage(image, 0, 0);
+    }
+
+    public static int toArgb(Color color) {
+        int a = (int) Math.round(color.getOpacity() * 255);
+        int r = (int) Math.round(color.getRed() * 255);
+        int g = (int) Math.round(color.getGreen() * 255);
+        int b = (int) Math.round(color.getBlue() * 255);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
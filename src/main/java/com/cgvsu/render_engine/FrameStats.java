@@ -0,0 +1,167 @@
+package com.cgvsu.render_engine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+// Замеры последних кадров в кольцевом буфере: время по стадиям конвейера,
+// количество примитивов и объём выделенной за кадр памяти
+public class FrameStats {
+
+    public enum Stage { SETUP, PROJECTION, DRAW, RASTERIZE, PRESENT }
+
+    public static final int CAPACITY = 240;
+    private static final int STAGES = Stage.values().length;
+
+    // Счётчик выделений текущего потока есть только в HotSpot
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationBean();
+
+    private final long[] frameNanos = new long[CAPACITY];
+    private final long[] frameEnds = new long[CAPACITY];
+    private final long[] stageNanos = new long[CAPACITY * STAGES];
+    private final int[] vertexCounts = new int[CAPACITY];
+    private final int[] polygonCounts = new int[CAPACITY];
+    private final int[] edgeCounts = new int[CAPACITY];
+    private final long[] allocatedBytes = new long[CAPACITY];
+    private int head;
+    private int size;
+
+    // Текущий, ещё не завершённый кадр
+    private final long[] currentStages = new long[STAGES];
+    private long frameStart;
+    private long allocationStart;
+    private int vertices;
+    private int polygons;
+    private int edges;
+
+    private long lastPickNanos;
+    private final long[] sortScratch = new long[CAPACITY];
+
+    public void beginFrame() {
+        Arrays.fill(currentStages, 0);
+        vertices = 0;
+        polygons = 0;
+        edges = 0;
+        allocationStart = threadAllocatedBytes();
+        frameStart = System.nanoTime();
+    }
+
+    // Время стадии накапливается: стадии повторяются для каждого объекта сцены
+    public void addStageTime(Stage stage, long nanos) {
+        currentStages[stage.ordinal()] += nanos;
+    }
+
+    public void addVertices(int count) {
+        vertices += count;
+    }
+
+    public void addPolygons(int count) {
+        polygons += count;
+    }
+
+    public void addEdges(int count) {
+        edges += count;
+    }
+
+    public void endFrame() {
+        long end = System.nanoTime();
+        long allocationEnd = threadAllocatedBytes();
+        int slot = head;
+        frameNanos[slot] = end - frameStart;
+        frameEnds[slot] = end;
+        System.arraycopy(currentStages, 0, stageNanos, slot * STAGES, STAGES);
+        vertexCounts[slot] = vertices;
+        polygonCounts[slot] = polygons;
+        edgeCounts[slot] = edges;
+        allocatedBytes[slot] = allocationStart < 0 ? -1 : allocationEnd - allocationStart;
+        head = (head + 1) % CAPACITY;
+        size = Math.min(size + 1, CAPACITY);
+    }
+
+    public void recordPicking(long nanos) {
+        lastPickNanos = nanos;
+    }
+
+    public long getLastPickNanos() {
+        return lastPickNanos;
+    }
+
+    // Количество кадров в буфере
+    public int size() {
+        return size;
+    }
+
+    // Кадры нумеруются от последнего: 0 — самый свежий
+    public long getFrameNanos(int age) {
+        return frameNanos[slot(age)];
+    }
+
+    public long getStageNanos(int age, Stage stage) {
+        return stageNanos[slot(age) * STAGES + stage.ordinal()];
+    }
+
+    public int getVertexCount(int age) {
+        return vertexCounts[slot(age)];
+    }
+
+    public int getPolygonCount(int age) {
+        return polygonCounts[slot(age)];
+    }
+
+    public int getEdgeCount(int age) {
+        return edgeCounts[slot(age)];
+    }
+
+    // -1, если JVM не умеет считать выделения потока
+    public long getAllocatedBytes(int age) {
+        return allocatedBytes[slot(age)];
+    }
+
+    // Перцентиль времени кадра по буферу, p от 0 до 100
+    public long percentileFrameNanos(double p) {
+        if (p < 0 || p > 100) {
+            throw new IllegalArgumentException("Percentile must be in [0, 100]: " + p);
+        }
+        if (size == 0) {
+            return 0;
+        }
+        for (int i = 0; i < size; i++) {
+            sortScratch[i] = frameNanos[slot(i)];
+        }
+        Arrays.sort(sortScratch, 0, size);
+        int rank = (int) Math.ceil(p / 100.0 * size) - 1;
+        return sortScratch[Math.max(0, rank)];
+    }
+
+    // Кадров за последнюю секунду: при перерисовке по требованию в простое это 0
+    public int getFramesPerSecond() {
+        long now = System.nanoTime();
+        int count = 0;
+        while (count < size && now - frameEnds[slot(count)] <= 1_000_000_000L) {
+            count++;
+        }
+        return count;
+    }
+
+    private int slot(int age) {
+        if (age < 0 || age >= size) {
+            throw new IllegalArgumentException("Frame age out of range: " + age);
+        }
+        return (head - 1 - age + CAPACITY) % CAPACITY;
+    }
+
+    private static long threadAllocatedBytes() {
+        return ALLOCATIONS == null ? -1 : ALLOCATIONS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotSpot = (com.sun.management.ThreadMXBean) bean;
+            if (hotSpot.isThreadAllocatedMemorySupported() && hotSpot.isThreadAllocatedMemoryEnabled()) {
+                return hotSpot;
+            }
+        }
+        return null;
+    }
+}
@@ -3,7 +3,6 @@ package com.cgvsu.render_engine;
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.math.Matrix4f;
-import com.cgvsu.math.Vector4f;
 
 public class GraphicConveyor {
     public static Matrix4f rotateScaleTranslate() {
@@ -73,6 +72,154 @@ public class GraphicConveyor {
         return new Vector3f(x, y, z);
     }
 
+    // Направление, а не точка: только линейная часть 3x3, перенос не действует
+    public static Vector3f multiplyMatrix4ByDirection(Matrix4f matrix, Vector3f direction) {
+        return new Vector3f(
+                direction.x * matrix.get(0, 0) + direction.y * matrix.get(1, 0) + direction.z * matrix.get(2, 0),
+                direction.x * matrix.get(0, 1) + direction.y * matrix.get(1, 1) + direction.z * matrix.get(2, 1),
+                direction.x * matrix.get(0, 2) + direction.y * matrix.get(1, 2) + direction.z * matrix.get(2, 2));
+    }
+
+    // lookAt смотрит вдоль +z видового пространства, а perspective рассчитана на -z,
+    // поэтому у видимых точек w < 0, а расстояние до камеры равно -w
+    public static float viewDepth(float clipW) {
+        return -clipW;
+    }
+
+    // true, если параллелепипед bounds (minX, minY, minZ, maxX, maxY, maxZ) целиком
+    // лежит по внешнюю сторону одной из плоскостей пирамиды видимости.
+    // Проверка линейна в однородных координатах, поэтому углов достаточно
+    public static boolean isBoxOutsideFrustum(Matrix4f mvp, float[] bounds, float nearPlane, float farPlane) {
+        float m00 = mvp.get(0, 0), m01 = mvp.get(0, 1), m03 = mvp.get(0, 3);
+        float m10 = mvp.get(1, 0), m11 = mvp.get(1, 1), m13 = mvp.get(1, 3);
+        float m20 = mvp.get(2, 0), m21 = mvp.get(2, 1), m23 = mvp.get(2, 3);
+        float m30 = mvp.get(3, 0), m31 = mvp.get(3, 1), m33 = mvp.get(3, 3);
+
+        // Биты: левая, правая, нижняя, верхняя, ближняя, дальняя плоскости
+        int outsideAll = 0b111111;
+        for (int corner = 0; corner < 8; corner++) {
+            float px = (corner & 1) == 0 ? bounds[0] : bounds[3];
+            float py = (corner & 2) == 0 ? bounds[1] : bounds[4];
+            float pz = (corner & 4) == 0 ? bounds[2] : bounds[5];
+
+            float x = px * m00 + py * m10 + pz * m20 + m30;
+            float y = px * m01 + py * m11 + pz * m21 + m31;
+            float d = viewDepth(px * m03 + py * m13 + pz * m23 + m33);
+
+            int outside = 0;
+            if (x < -d) outside |= 1;
+            if (x > d) outside |= 2;
+            if (y < -d) outside |= 4;
+            if (y > d) outside |= 8;
+            if (d < nearPlane) outside |= 16;
+            if (d > farPlane) outside |= 32;
+            outsideAll &= outside;
+            if (outsideAll == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Отсекает отрезок ближней плоскостью d >= nearPlane в однородных координатах (x, y, d).
+    // В out пишутся концы xa, ya, da, xb, yb, db; false — отрезок целиком за плоскостью
+    public static boolean clipSegmentNear(float ax, float ay, float ad, float bx, float by, float bd,
+                                          float nearPlane, float[] out) {
+        float ea = ad - nearPlane;
+        float eb = bd - nearPlane;
+        if (ea < 0 && eb < 0) {
+            return false;
+        }
+        if (ea < 0) {
+            float t = ea / (ea - eb);
+            ax += (bx - ax) * t;
+            ay += (by - ay) * t;
+            ad = nearPlane;
+        } else if (eb < 0) {
+            float t = eb / (eb - ea);
+            bx += (ax - bx) * t;
+            by += (ay - by) * t;
+            bd = nearPlane;
+        }
+        out[0] = ax;
+        out[1] = ay;
+        out[2] = ad;
+        out[3] = bx;
+        out[4] = by;
+        out[5] = bd;
+        return true;
+    }
+
+    // Отсечение полигона ближней плоскостью (Сазерленд-Ходжмен). Вершины по три числа x, y, d;
+    // в out помещается до n + 1 вершин, возвращается их количество
+    public static int clipPolygonNear(float[] in, int n, float nearPlane, float[] out) {
+        int count = 0;
+        for (int j = 0; j < n; j++) {
+            int a = j * 3;
+            int b = ((j + 1) % n) * 3;
+            float ea = in[a + 2] - nearPlane;
+            float eb = in[b + 2] - nearPlane;
+            if (ea >= 0) {
+                out[count * 3] = in[a];
+                out[count * 3 + 1] = in[a + 1];
+                out[count * 3 + 2] = in[a + 2];
+                count++;
+            }
+            if ((ea >= 0) != (eb >= 0)) {
+                float t = ea / (ea - eb);
+                out[count * 3] = in[a] + (in[b] - in[a]) * t;
+                out[count * 3 + 1] = in[a + 1] + (in[b + 1] - in[a + 1]) * t;
+                out[count * 3 + 2] = nearPlane;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Отсечение отрезка (x0, y0, x1, y1) в начале out прямоугольником по Лиангу-Барски.
+    // false — отрезок целиком снаружи
+    public static boolean clipSegmentRect(float[] out, float minX, float minY, float maxX, float maxY) {
+        float x0 = out[0];
+        float y0 = out[1];
+        float dx = out[2] - x0;
+        float dy = out[3] - y0;
+        float t0 = 0.0f;
+        float t1 = 1.0f;
+        if (dx == 0) {
+            if (x0 < minX || x0 > maxX) return false;
+        } else {
+            float ta = (minX - x0) / dx;
+            float tb = (maxX - x0) / dx;
+            t0 = Math.max(t0, Math.min(ta, tb));
+            t1 = Math.min(t1, Math.max(ta, tb));
+        }
+        if (dy == 0) {
+            if (y0 < minY || y0 > maxY) return false;
+        } else {
+            float ta = (minY - y0) / dy;
+            float tb = (maxY - y0) / dy;
+            t0 = Math.max(t0, Math.min(ta, tb));
+            t1 = Math.min(t1, Math.max(ta, tb));
+        }
+        if (t0 > t1) {
+            return false;
+        }
+        out[0] = x0 + t0 * dx;
+        out[1] = y0 + t0 * dy;
+        out[2] = x0 + t1 * dx;
+        out[3] = y0 + t1 * dy;
+        return true;
+    }
+
+    // Экранные координаты точки из однородных x, y и глубины d = -w
+    public static float clipToScreenX(float x, float d, int width) {
+        return (1.0f - x / d) * 0.5f * width;
+    }
+
+    public static float clipToScreenY(float y, float d, int height) {
+        return (1.0f + y / d) * 0.5f * height;
+    }
+
     public static Vector2f vertexToPoint(Vector3f vertex, int width, int height) {
         float x = (vertex.x + 1.0f) * 0.5f * width;
         float y = (1.0f - (vertex.y + 1.0f) * 0.5f) * height;
@@ -146,21 +293,17 @@ public class GraphicConveyor {
         return transMat.multiply(rotationMat).multiply(scaleMat);
     }
 
-    public static Vector3f screenToWorld(Vector2f screenPoint, int width, int height,
+    // Мировая точка, которая проецируется в пиксель screenPoint на глубине d = depth.
+    // Обратное к clipToScreenX/Y: видовые координаты точки равны (x * d / P00, y * d / P11, d),
+    // дальше — обратная видовая матрица. Две глубины дают луч, проходящий через пиксель
+    public static Vector3f screenToWorld(Vector2f screenPoint, float depth, int width, int height,
                                          Matrix4f viewMatrix, Matrix4f projectionMatrix) {
-        float x = (2.0f * screenPoint.x) / width - 1.0f;
-        float y = 1.0f - (2.0f * screenPoint.y) / height;
-
-        Vector4f clipCoords = new Vector4f(x, y, -1.0f, 1.0f);
-
-        Matrix4f invProjection = projectionMatrix.inverted();
-        Vector4f eyeCoords = invProjection.multiply(clipCoords);
-        eyeCoords.z = -1.0f;
-        eyeCoords.w = 0.0f;
-
-        Matrix4f invView = viewMatrix.inverted();
-        Vector4f worldCoords = invView.multiply(eyeCoords);
-
-        return new Vector3f(worldCoords.x, worldCoords.y, worldCoords.z);
+        float x = 1.0f - 2.0f * screenPoint.x / width;
+        float y = 2.0f * screenPoint.y / height - 1.0f;
+        Vector3f viewPoint = new Vector3f(
+                x * depth / projectionMatrix.get(0, 0),
+                y * depth / projectionMatrix.get(1, 1),
+                depth);
+        return multiplyMatrix4ByVector3(viewMatrix.inverted(), viewPoint);
     }
 }
@@ -0,0 +1,132 @@
+package com.cgvsu.render_engine;
+
+import java.util.Arrays;
+
+// Экранные примитивы кадра в порядке отправки; массивы переиспользуются между кадрами
+public class PrimitiveBuffer {
+    public static final int TRIANGLE = 0;
+    public static final int LINE = 1;
+
+    // Треугольник: x0 y0 z0 x1 y1 z1 x2 y2 z2, отрезок: x0 y0 x1 y1
+    static final int DATA_STRIDE = 9;
+    // Ограничивающий прямоугольник в пикселях: minX minY maxX maxY
+    static final int BOUNDS_STRIDE = 4;
+
+    private int count;
+    private int[] kinds = new int[256];
+    private int[] colors = new int[256];
+    private int[] thickness = new int[256];
+    // Идентификатор для буфера выбора, 0 — без идентификатора
+    private int[] ids = new int[256];
+    private float[] data = new float[256 * DATA_STRIDE];
+    private int[] bounds = new int[256 * BOUNDS_STRIDE];
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void addTriangle(float x0, float y0, float z0,
+                            float x1, float y1, float z1,
+                            float x2, float y2, float z2,
+                            int argb) {
+        addTriangle(x0, y0, z0, x1, y1, z1, x2, y2, z2, argb, 0);
+    }
+
+    public void addTriangle(float x0, float y0, float z0,
+                            float x1, float y1, float z1,
+                            float x2, float y2, float z2,
+                            int argb, int id) {
+        int i = reserve();
+        int d = i * DATA_STRIDE;
+        data[d] = x0;
+        data[d + 1] = y0;
+        data[d + 2] = z0;
+        data[d + 3] = x1;
+        data[d + 4] = y1;
+        data[d + 5] = z1;
+        data[d + 6] = x2;
+        data[d + 7] = y2;
+        data[d + 8] = z2;
+        kinds[i] = TRIANGLE;
+        colors[i] = argb;
+        thickness[i] = 0;
+        ids[i] = id;
+        setBounds(i,
+                Math.min(x0, Math.min(x1, x2)), Math.min(y0, Math.min(y1, y2)),
+                Math.max(x0, Math.max(x1, x2)), Math.max(y0, Math.max(y1, y2)), 0);
+    }
+
+    public void addLine(float x0, float y0, float x1, float y1, int argb, int lineThickness) {
+        addLine(x0, y0, x1, y1, argb, lineThickness, 0);
+    }
+
+    public void addLine(float x0, float y0, float x1, float y1, int argb, int lineThickness, int id) {
+        int i = reserve();
+        int d = i * DATA_STRIDE;
+        data[d] = x0;
+        data[d + 1] = y0;
+        data[d + 2] = x1;
+        data[d + 3] = y1;
+        kinds[i] = LINE;
+        colors[i] = argb;
+        thickness[i] = lineThickness;
+        ids[i] = id;
+        setBounds(i, Math.min(x0, x1), Math.min(y0, y1), Math.max(x0, x1), Math.max(y0, y1), lineThickness);
+    }
+
+    int[] bounds() {
+        return bounds;
+    }
+
+    // Рисует примитив, ограничиваясь прямоугольником тайла
+    void draw(FrameBuffer fb, int i, int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        int d = i * DATA_STRIDE;
+        if (kinds[i] == TRIANGLE) {
+            Rasterizer.fillTriangle(fb,
+                    data[d], data[d + 1], data[d + 2],
+                    data[d + 3], data[d + 4], data[d + 5],
+                    data[d + 6], data[d + 7], data[d + 8],
+                    colors[i], ids[i], clipMinX, clipMinY, clipMaxX, clipMaxY);
+        } else {
+            Rasterizer.drawLine(fb, data[d], data[d + 1], data[d + 2], data[d + 3],
+                    colors[i], thickness[i], ids[i], clipMinX, clipMinY, clipMaxX, clipMaxY);
+        }
+    }
+
+    private void setBounds(int i, float minX, float minY, float maxX, float maxY, int margin) {
+        int b = i * BOUNDS_STRIDE;
+        if (!(Float.isFinite(minX) && Float.isFinite(minY) && Float.isFinite(maxX) && Float.isFinite(maxY))) {
+            // Пустой прямоугольник: примитив не попадёт ни в один тайл
+            bounds[b] = 1;
+            bounds[b + 1] = 1;
+            bounds[b + 2] = 0;
+            bounds[b + 3] = 0;
+            return;
+        }
+        bounds[b] = clampToInt(Math.floor(minX) - margin);
+        bounds[b + 1] = clampToInt(Math.floor(minY) - margin);
+        bounds[b + 2] = clampToInt(Math.ceil(maxX) + margin);
+        bounds[b + 3] = clampToInt(Math.ceil(maxY) + margin);
+    }
+
+    private static int clampToInt(double value) {
+        return (int) Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2, value));
+    }
+
+    private int reserve() {
+        if (count == kinds.length) {
+            int capacity = kinds.length * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            colors = Arrays.copyOf(colors, capacity);
+            thickness = Arrays.copyOf(thickness, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            data = Arrays.copyOf(data, capacity * DATA_STRIDE);
+            bounds = Arrays.copyOf(bounds, capacity * BOUNDS_STRIDE);
+        }
+        return count++;
+    }
+}
@@ -0,0 +1,110 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.BulkTransform;
+import com.cgvsu.math.Matrix4f;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Экранные координаты всех вершин модели, посчитанные один раз за кадр.
+// Раскладка: sx, sy, d — где d = -w расстояние до камеры вдоль взгляда.
+// Рядом хранятся однородные x, y до деления на w: по ним отсекается ближняя плоскость
+public class ProjectedVertices {
+    public static final int STRIDE = 3;
+    public static final int CLIP_STRIDE = 2;
+
+    static final ProjectionKernel SCALAR = ProjectedVertices::projectRange;
+    // Векторный вариант, если JVM запущена с --add-modules jdk.incubator.vector;
+    // -Dcgvsu.simd=false оставляет скалярный
+    private static final ProjectionKernel KERNEL = selectKernel();
+
+    private float[] data = new float[0];
+    private float[] clip = new float[0];
+    private int count;
+
+    // positions — координаты вершин подряд x, y, z, как в Model.getPositions()
+    public void project(float[] positions, int vertexCount, Matrix4f mvp, int width, int height, ForkJoinPool pool) {
+        count = vertexCount;
+        if (data.length < count * STRIDE) {
+            data = new float[count * STRIDE];
+            clip = new float[count * CLIP_STRIDE];
+        }
+        float[] dest = data;
+        float[] clipDest = clip;
+        BulkTransform.forEachRange(pool, count,
+                (from, to) -> KERNEL.project(positions, mvp, width, height, dest, clipDest, from, to));
+    }
+
+    static ProjectionKernel vectorKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return new VectorProjectionKernel(SCALAR);
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    private static ProjectionKernel selectKernel() {
+        if ("false".equals(System.getProperty("cgvsu.simd"))) {
+            return SCALAR;
+        }
+        ProjectionKernel vector = vectorKernel();
+        return vector != null ? vector : SCALAR;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public float getX(int index) {
+        return data[index * STRIDE];
+    }
+
+    public float getY(int index) {
+        return data[index * STRIDE + 1];
+    }
+
+    public float getDepth(int index) {
+        return data[index * STRIDE + 2];
+    }
+
+    public float[] getData() {
+        return data;
+    }
+
+    public float[] getClipData() {
+        return clip;
+    }
+
+    private static void projectRange(float[] positions, Matrix4f m, int width, int height,
+                                     float[] dest, float[] clipDest, int from, int to) {
+        float m00 = m.get(0, 0), m01 = m.get(0, 1), m03 = m.get(0, 3);
+        float m10 = m.get(1, 0), m11 = m.get(1, 1), m13 = m.get(1, 3);
+        float m20 = m.get(2, 0), m21 = m.get(2, 1), m23 = m.get(2, 3);
+        float m30 = m.get(3, 0), m31 = m.get(3, 1), m33 = m.get(3, 3);
+        float halfWidth = 0.5f * width;
+        float halfHeight = 0.5f * height;
+
+        for (int i = from; i < to; i++) {
+            float vx = positions[3 * i];
+            float vy = positions[3 * i + 1];
+            float vz = positions[3 * i + 2];
+            float x = vx * m00 + vy * m10 + vz * m20 + m30;
+            float y = vx * m01 + vy * m11 + vz * m21 + m31;
+            float w = vx * m03 + vy * m13 + vz * m23 + m33;
+            int c = i * CLIP_STRIDE;
+            clipDest[c] = x;
+            clipDest[c + 1] = y;
+            // Как в multiplyMatrix4ByVector3: при w ~ 0 деление пропускается
+            if (Math.abs(w) > 1e-7f) {
+                x /= w;
+                y /= w;
+            }
+            int o = i * STRIDE;
+            dest[o] = (x + 1.0f) * halfWidth;
+            dest[o + 1] = (1.0f - y) * halfHeight;
+            dest[o + 2] = GraphicConveyor.viewDepth(w);
+        }
+    }
+}
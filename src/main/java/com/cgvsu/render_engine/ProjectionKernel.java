@@ -0,0 +1,9 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+
+// Проекция диапазона вершин [from, to) в раскладку ProjectedVertices
+interface ProjectionKernel {
+    void project(float[] positions, Matrix4f mvp, int width, int height,
+                 float[] dest, float[] clipDest, int from, int to);
+}
@@ -0,0 +1,230 @@
+package com.cgvsu.render_engine;
+
+public class Rasterizer {
+
+    // Отрезок по алгоритму Брезенхема, предварительно обрезанный по границам буфера
+    public static void drawLine(FrameBuffer fb, float x0, float y0, float x1, float y1, int argb, int thickness) {
+        drawLine(fb, x0, y0, x1, y1, argb, thickness, 0, 0, fb.getWidth() - 1, fb.getHeight() - 1);
+    }
+
+    public static void drawLine(FrameBuffer fb, float x0, float y0, float x1, float y1, int argb, int thickness,
+                                int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        drawLine(fb, x0, y0, x1, y1, argb, thickness, 0, clipMinX, clipMinY, clipMaxX, clipMaxY);
+    }
+
+    // Вариант для тайла: отрезок всегда обрезается по всему экрану, чтобы последовательность
+    // пикселей не зависела от разбиения, а рисуются только пиксели внутри [clipMin, clipMax].
+    // id пишется в буфер идентификаторов вместе с цветом, если буфер включён
+    public static void drawLine(FrameBuffer fb, float x0, float y0, float x1, float y1, int argb, int thickness,
+                                int id, int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        float maxX = fb.getWidth() - 1;
+        float maxY = fb.getHeight() - 1;
+
+        // Отсечение Лианга-Барски: без него точка за камерой даёт отрезок в миллионы пикселей
+        if (!Float.isFinite(x0) || !Float.isFinite(y0) || !Float.isFinite(x1) || !Float.isFinite(y1)) {
+            return;
+        }
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        float t0 = 0.0f;
+        float t1 = 1.0f;
+        if (dx == 0) {
+            if (x0 < 0 || x0 > maxX) return;
+        } else {
+            float ta = -x0 / dx;
+            float tb = (maxX - x0) / dx;
+            t0 = Math.max(t0, Math.min(ta, tb));
+            t1 = Math.min(t1, Math.max(ta, tb));
+        }
+        if (dy == 0) {
+            if (y0 < 0 || y0 > maxY) return;
+        } else {
+            float ta = -y0 / dy;
+            float tb = (maxY - y0) / dy;
+            t0 = Math.max(t0, Math.min(ta, tb));
+            t1 = Math.min(t1, Math.max(ta, tb));
+        }
+        if (t0 > t1) {
+            return;
+        }
+
+        int ix0 = Math.round(x0 + t0 * dx);
+        int iy0 = Math.round(y0 + t0 * dy);
+        int ix1 = Math.round(x0 + t1 * dx);
+        int iy1 = Math.round(y0 + t1 * dy);
+
+        int margin = thickness / 2;
+        if (Math.max(ix0, ix1) + margin < clipMinX || Math.min(ix0, ix1) - margin > clipMaxX
+                || Math.max(iy0, iy1) + margin < clipMinY || Math.min(iy0, iy1) - margin > clipMaxY) {
+            return;
+        }
+
+        int adx = Math.abs(ix1 - ix0);
+        int ady = -Math.abs(iy1 - iy0);
+        int sx = ix0 < ix1 ? 1 : -1;
+        int sy = iy0 < iy1 ? 1 : -1;
+        int err = adx + ady;
+
+        while (true) {
+            plot(fb, ix0, iy0, argb, thickness, id, clipMinX, clipMinY, clipMaxX, clipMaxY);
+            if (ix0 == ix1 && iy0 == iy1) break;
+            int e2 = 2 * err;
+            if (e2 >= ady) {
+                err += ady;
+                ix0 += sx;
+            }
+            if (e2 <= adx) {
+                err += adx;
+                iy0 += sy;
+            }
+        }
+    }
+
+    public static void fillCircle(FrameBuffer fb, float cx, float cy, float radius, int argb) {
+        int minX = (int) Math.floor(cx - radius);
+        int maxX = (int) Math.ceil(cx + radius);
+        int minY = (int) Math.floor(cy - radius);
+        int maxY = (int) Math.ceil(cy + radius);
+        float r2 = radius * radius;
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                float ddx = x - cx;
+                float ddy = y - cy;
+                if (ddx * ddx + ddy * ddy <= r2) {
+                    fb.setPixel(x, y, argb);
+                }
+            }
+        }
+    }
+
+    public static void strokeCircle(FrameBuffer fb, float cx, float cy, float radius, int argb, float lineWidth) {
+        int minX = (int) Math.floor(cx - radius - lineWidth);
+        int maxX = (int) Math.ceil(cx + radius + lineWidth);
+        int minY = (int) Math.floor(cy - radius - lineWidth);
+        int maxY = (int) Math.ceil(cy + radius + lineWidth);
+        float half = lineWidth * 0.5f;
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                float ddx = x - cx;
+                float ddy = y - cy;
+                float dist = (float) Math.sqrt(ddx * ddx + ddy * ddy);
+                if (Math.abs(dist - radius) <= half) {
+                    fb.setPixel(x, y, argb);
+                }
+            }
+        }
+    }
+
+    // Заливка треугольника по рёберным функциям с проверкой глубины.
+    // z0..z2 — обратная глубина 1/d, она линейна в экранных координатах
+    public static void fillTriangle(FrameBuffer fb,
+                                    float x0, float y0, float z0,
+                                    float x1, float y1, float z1,
+                                    float x2, float y2, float z2,
+                                    int argb) {
+        fillTriangle(fb, x0, y0, z0, x1, y1, z1, x2, y2, z2, argb,
+                0, 0, fb.getWidth() - 1, fb.getHeight() - 1);
+    }
+
+    public static void fillTriangle(FrameBuffer fb,
+                                    float x0, float y0, float z0,
+                                    float x1, float y1, float z1,
+                                    float x2, float y2, float z2,
+                                    int argb,
+                                    int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        fillTriangle(fb, x0, y0, z0, x1, y1, z1, x2, y2, z2, argb, 0, clipMinX, clipMinY, clipMaxX, clipMaxY);
+    }
+
+    // Рёберные функции считаются в каждом пикселе заново, а не накоплением от угла
+    // ограничивающего прямоугольника, поэтому результат не зависит от границ тайла.
+    // id попадает в буфер идентификаторов только там, где пиксель прошёл тест глубины
+    public static void fillTriangle(FrameBuffer fb,
+                                    float x0, float y0, float z0,
+                                    float x1, float y1, float z1,
+                                    float x2, float y2, float z2,
+                                    int argb, int id,
+                                    int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        float area = (x1 - x0) * (y2 - y0) - (y1 - y0) * (x2 - x0);
+        if (area == 0 || !Float.isFinite(area)) {
+            return;
+        }
+        if (area < 0) {
+            float t = x1; x1 = x2; x2 = t;
+            t = y1; y1 = y2; y2 = t;
+            t = z1; z1 = z2; z2 = t;
+            area = -area;
+        }
+
+        int minX = Math.max(clipMinX, (int) Math.floor(Math.min(x0, Math.min(x1, x2))));
+        int maxX = Math.min(clipMaxX, (int) Math.ceil(Math.max(x0, Math.max(x1, x2))));
+        int minY = Math.max(clipMinY, (int) Math.floor(Math.min(y0, Math.min(y1, y2))));
+        int maxY = Math.min(clipMaxY, (int) Math.ceil(Math.max(y0, Math.max(y1, y2))));
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+
+        float invArea = 1.0f / area;
+        int width = fb.getWidth();
+        int[] color = fb.getColorBuffer();
+        float[] depth = fb.getDepthBuffer();
+        int[] ids = fb.getIdBuffer();
+
+        for (int y = minY; y <= maxY; y++) {
+            float py = y + 0.5f;
+            float row0 = (x2 - x1) * (py - y1);
+            float row1 = (x0 - x2) * (py - y2);
+            float row2 = (x1 - x0) * (py - y0);
+            int index = y * width + minX;
+            for (int x = minX; x <= maxX; x++, index++) {
+                float px = x + 0.5f;
+                float w0 = row0 - (y2 - y1) * (px - x1);
+                float w1 = row1 - (y0 - y2) * (px - x2);
+                float w2 = row2 - (y1 - y0) * (px - x0);
+                if (w0 >= 0 && w1 >= 0 && w2 >= 0) {
+                    float z = (w0 * z0 + w1 * z1 + w2 * z2) * invArea;
+                    if (z > depth[index]) {
+                        depth[index] = z;
+                        color[index] = argb;
+                        if (ids != null) {
+                            ids[index] = id;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Затенение цвета коэффициентом освещённости [0, 1]
+    public static int shade(int argb, float intensity) {
+        int r = (int) (((argb >> 16) & 0xFF) * intensity);
+        int g = (int) (((argb >> 8) & 0xFF) * intensity);
+        int b = (int) ((argb & 0xFF) * intensity);
+        return (argb & 0xFF000000) | (r << 16) | (g << 8) | b;
+    }
+
+    // Толщина линии в пикселях для заданной ширины штриха GraphicsContext
+    public static int thickness(double lineWidth) {
+        return Math.max(1, (int) Math.round(lineWidth));
+    }
+
+    private static void plot(FrameBuffer fb, int x, int y, int argb, int thickness, int id,
+                             int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        int from = -(thickness - 1) / 2;
+        int to = from + thickness;
+        int fromX = Math.max(x + from, clipMinX);
+        int toX = Math.min(x + to - 1, clipMaxX);
+        int fromY = Math.max(y + from, clipMinY);
+        int toY = Math.min(y + to - 1, clipMaxY);
+        int width = fb.getWidth();
+        int[] color = fb.getColorBuffer();
+        int[] ids = fb.getIdBuffer();
+        for (int py = fromY; py <= toY; py++) {
+            for (int px = fromX; px <= toX; px++) {
+                color[py * width + px] = argb;
+                if (ids != null) {
+                    ids[py * width + px] = id;
+                }
+            }
+        }
+    }
+}
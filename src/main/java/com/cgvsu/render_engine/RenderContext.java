@@ -0,0 +1,279 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.model.SceneObject;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+// Настройки рендера и переиспользуемые между кадрами буферы
+public class RenderContext {
+
+    public enum Backend { CANVAS, FRAMEBUFFER }
+
+    public enum Mode { WIREFRAME, SOLID }
+
+    private Backend backend = Backend.CANVAS;
+    private Mode mode = Mode.WIREFRAME;
+    private final FrameBuffer frameBuffer = new FrameBuffer();
+    private float[] polygonBuffer = new float[64];
+    private float[] clipBuffer = new float[32];
+    private float[] clippedBuffer = new float[32];
+    private final float[] segmentBuffer = new float[6];
+    private final PrimitiveBuffer primitives = new PrimitiveBuffer();
+    private final TileRasterizer tileRasterizer = new TileRasterizer();
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool pool;
+    // Проекции живут, пока жив объект сцены
+    private final Map<SceneObject, ProjectedVertices> projections = new WeakHashMap<>();
+    private int culledObjectCount;
+    private boolean backFaceCulling;
+    private boolean keepSelectedPolygonVisible = true;
+    private boolean[] faceBuffer = new boolean[0];
+    private final FrameStats stats = new FrameStats();
+    private boolean hudVisible;
+    private boolean idBufferEnabled;
+    // Идентификатор полигона p объекта i в буфере выбора — pickBases[i] + p;
+    // pickBases[n] — первый свободный идентификатор
+    private int[] pickBases = new int[1];
+    private int pickObjectCount;
+    private boolean pickIdsValid;
+    // Множественное выделение в выбранной модели: рисуется вместе с одиночным выбором
+    private final BitSet selectedVertices = new BitSet();
+    private final BitSet selectedPolygons = new BitSet();
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    public void setBackend(Backend backend) {
+        this.backend = backend;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public boolean isBackFaceCulling() {
+        return backFaceCulling;
+    }
+
+    public void setBackFaceCulling(boolean backFaceCulling) {
+        this.backFaceCulling = backFaceCulling;
+    }
+
+    // Выбранный полигон рисуется, даже если отвёрнут от камеры
+    public boolean isKeepSelectedPolygonVisible() {
+        return keepSelectedPolygonVisible;
+    }
+
+    public void setKeepSelectedPolygonVisible(boolean keepSelectedPolygonVisible) {
+        this.keepSelectedPolygonVisible = keepSelectedPolygonVisible;
+    }
+
+    public FrameStats getStats() {
+        return stats;
+    }
+
+    // Оверлей со временем кадра и разбивкой по стадиям
+    public boolean isHudVisible() {
+        return hudVisible;
+    }
+
+    public void setHudVisible(boolean hudVisible) {
+        this.hudVisible = hudVisible;
+    }
+
+    // Рендер во фреймбуфер дополнительно пишет идентификаторы полигонов для выбора мышью
+    public boolean isIdBufferEnabled() {
+        return idBufferEnabled;
+    }
+
+    public void setIdBufferEnabled(boolean idBufferEnabled) {
+        this.idBufferEnabled = idBufferEnabled;
+        frameBuffer.setIdBufferEnabled(idBufferEnabled);
+        pickIdsValid = false;
+    }
+
+    // Последний кадр записал идентификаторы: выбор можно взять из буфера одной выборкой
+    public boolean hasPickIds() {
+        return pickIdsValid;
+    }
+
+    // Индекс объекта под пикселем или -1
+    public int getPickedObject(int x, int y) {
+        int id = pickedId(x, y);
+        return id == 0 ? -1 : objectOfId(id);
+    }
+
+    // Индекс полигона под пикселем в его объекте или -1
+    public int getPickedPolygon(int x, int y) {
+        int id = pickedId(x, y);
+        return id == 0 ? -1 : id - pickBases[objectOfId(id)];
+    }
+
+    private int pickedId(int x, int y) {
+        if (!pickIdsValid) {
+            return 0;
+        }
+        int id = frameBuffer.getId(x, y);
+        return id > 0 && id < pickBases[pickObjectCount] ? id : 0;
+    }
+
+    // Последний объект с базой не больше id: пустые объекты делят базу со следующим
+    private int objectOfId(int id) {
+        int lo = 0;
+        int hi = pickObjectCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (pickBases[mid] <= id) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    // Раздаёт идентификаторы всем объектам сцены, включая отсечённые, и очищает буфер.
+    // false — буфер выключен, рендер пишет нулевые идентификаторы
+    boolean preparePickIds(List<SceneObject> sceneObjects) {
+        pickIdsValid = false;
+        if (!idBufferEnabled) {
+            return false;
+        }
+        int n = sceneObjects.size();
+        if (pickBases.length < n + 1) {
+            pickBases = new int[Math.max(n + 1, pickBases.length * 2)];
+        }
+        pickBases[0] = 1;
+        for (int i = 0; i < n; i++) {
+            pickBases[i + 1] = pickBases[i] + sceneObjects.get(i).getModel().getPolygonCount();
+        }
+        pickObjectCount = n;
+        frameBuffer.clearIds();
+        pickIdsValid = true;
+        return true;
+    }
+
+    // Кадр нарисован без идентификаторов: старый буфер больше не соответствует картинке
+    void invalidatePickIds() {
+        pickIdsValid = false;
+    }
+
+    // Идентификатор полигона для текущего кадра, 0 при выключенном буфере
+    int pickId(int objectIndex, int polygonIndex) {
+        return pickIdsValid ? pickBases[objectIndex] + polygonIndex : 0;
+    }
+
+    // Изменяются на месте; индексы относятся к выбранной модели
+    public BitSet getSelectedVertices() {
+        return selectedVertices;
+    }
+
+    public BitSet getSelectedPolygons() {
+        return selectedPolygons;
+    }
+
+    public void clearSelection() {
+        selectedVertices.clear();
+        selectedPolygons.clear();
+    }
+
+    public FrameBuffer getFrameBuffer() {
+        return frameBuffer;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    // 1 — растеризация тайлов в вызывающем потоке, без пула
+    public void setWorkerCount(int workerCount) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be positive: " + workerCount);
+        }
+        if (workerCount != this.workerCount && pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        this.workerCount = workerCount;
+    }
+
+    PrimitiveBuffer getPrimitives() {
+        return primitives;
+    }
+
+    // Сколько объектов отброшено отсечением по пирамиде видимости в последнем кадре
+    public int getCulledObjectCount() {
+        return culledObjectCount;
+    }
+
+    void setCulledObjectCount(int culledObjectCount) {
+        this.culledObjectCount = culledObjectCount;
+    }
+
+    public ProjectedVertices getProjection(SceneObject sceneObject) {
+        return projections.computeIfAbsent(sceneObject, so -> new ProjectedVertices());
+    }
+
+    // Растеризует накопленные примитивы по тайлам и очищает список
+    void flushPrimitives() {
+        tileRasterizer.execute(frameBuffer, primitives, getPool());
+        primitives.clear();
+    }
+
+    // null, если работа идёт в одном потоке. Общий пул приложения: им же пользуются
+    // операции над моделями вне рендера
+    public ForkJoinPool getPool() {
+        if (workerCount == 1) {
+            return null;
+        }
+        if (pool == null) {
+            pool = new ForkJoinPool(workerCount);
+        }
+        return pool;
+    }
+
+    // Рабочий буфер под вершины одного полигона, растёт только на полигонах большего размера
+    float[] polygonBuffer(int size) {
+        if (polygonBuffer.length < size) {
+            polygonBuffer = new float[Math.max(size, polygonBuffer.length * 2)];
+        }
+        return polygonBuffer;
+    }
+
+    // Вершины полигона в однородных координатах до и после отсечения ближней плоскостью
+    float[] clipBuffer(int size) {
+        if (clipBuffer.length < size) {
+            clipBuffer = new float[Math.max(size, clipBuffer.length * 2)];
+        }
+        return clipBuffer;
+    }
+
+    float[] clippedBuffer(int size) {
+        if (clippedBuffer.length < size) {
+            clippedBuffer = new float[Math.max(size, clippedBuffer.length * 2)];
+        }
+        return clippedBuffer;
+    }
+
+    // Концы текущего отсекаемого отрезка
+    float[] segmentBuffer() {
+        return segmentBuffer;
+    }
+
+    // Флаги лицевых полигонов модели на текущий кадр
+    boolean[] faceBuffer(int size) {
+        if (faceBuffer.length < size) {
+            faceBuffer = new boolean[Math.max(size, faceBuffer.length * 2)];
+        }
+        return faceBuffer;
+    }
+}
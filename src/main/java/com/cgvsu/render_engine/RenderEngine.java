@@ -2,19 +2,31 @@ package com.cgvsu.render_engine;
 
 import com.cgvsu.math.Matrix4f;
 import com.cgvsu.math.Vector2f;
-import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.Model;
-import com.cgvsu.model.Polygon;
 import com.cgvsu.model.SceneObject;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
-import static com.cgvsu.render_engine.GraphicConveyor.*;
-
 public class RenderEngine {
+    private static final int MODEL_COLOR = FrameBuffer.toArgb(Color.BLACK);
+    private static final int SELECTED_MODEL_COLOR = FrameBuffer.toArgb(Color.RED);
+    private static final int SELECTED_POLYGON_COLOR = FrameBuffer.toArgb(Color.LIME);
+    private static final int SELECTED_VERTEX_COLOR = FrameBuffer.toArgb(Color.BLUE);
+    private static final int VERTEX_OUTLINE_COLOR = FrameBuffer.toArgb(Color.WHITE);
+    private static final int SOLID_MODEL_COLOR = FrameBuffer.toArgb(Color.LIGHTGRAY);
+    private static final float AMBIENT = 0.2f;
+    // Раскладка вершины в рабочем буфере: sx, sy, 1/d, -, x, y, z (видовые), -
+    private static final int SOLID_STRIDE = 8;
+    private static final Color HUD_BACKGROUND = Color.rgb(0, 0, 0, 0.6);
+    private static final Font HUD_FONT = Font.font("Monospaced", 12);
+    // Запас за краем экрана при отсечении отрезков: толстые линии не обрываются на границе
+    private static final float GUARD_BAND = 8;
+
+    // Буферы, кэши и пул потоков живут в context, который создаёт и хранит вызывающий
     public static void render(
             GraphicsContext gc,
             Camera camera,
@@ -23,17 +35,102 @@ public class RenderEngine {
             int height,
             int selectedModelIndex,
             int selectedVertexIndex,
+            int selectedPolygonIndex,
+            RenderContext context) {
+
+        FrameStats stats = context.getStats();
+        stats.beginFrame();
+
+        // Заливка требует буфера глубины, поэтому всегда идёт через программный растеризатор
+        if (context.getMode() == RenderContext.Mode.SOLID) {
+            long mark = System.nanoTime();
+            FrameBuffer fb = context.getFrameBuffer();
+            fb.resize(width, height);
+            fb.clear(0);
+            fb.clearDepth();
+            context.preparePickIds(sceneObjects);
+            lap(stats, FrameStats.Stage.SETUP, mark);
+            renderSolid(fb, context, camera, sceneObjects, width, height,
+                    selectedModelIndex, selectedVertexIndex, selectedPolygonIndex);
+            mark = System.nanoTime();
+            fb.present(gc);
+            lap(stats, FrameStats.Stage.PRESENT, mark);
+        } else if (context.getBackend() == RenderContext.Backend.FRAMEBUFFER) {
+            long mark = System.nanoTime();
+            FrameBuffer fb = context.getFrameBuffer();
+            fb.resize(width, height);
+            fb.clear(0);
+            context.preparePickIds(sceneObjects);
+            lap(stats, FrameStats.Stage.SETUP, mark);
+            renderToFrameBuffer(fb, context, camera, sceneObjects, width, height,
+                    selectedModelIndex, selectedVertexIndex, selectedPolygonIndex);
+            mark = System.nanoTime();
+            fb.present(gc);
+            lap(stats, FrameStats.Stage.PRESENT, mark);
+        } else {
+            context.invalidatePickIds();
+            renderToCanvas(gc, context, camera, sceneObjects, width, height,
+                    selectedModelIndex, selectedVertexIndex, selectedPolygonIndex);
+        }
+
+        stats.endFrame();
+        if (context.isHudVisible()) {
+            drawHud(gc, stats);
+        }
+    }
+
+    // Проецирует все вершины объекта один раз; тем же буфером пользуется выбор мышью
+    public static ProjectedVertices projectSceneObject(
+            RenderContext context, SceneObject sceneObject, Matrix4f mvp, int width, int height) {
+        ProjectedVertices projection = context.getProjection(sceneObject);
+        Model model = sceneObject.getModel();
+        projection.project(model.getPositions(), model.getVertexCount(), mvp, width, height, context.getPool());
+        return projection;
+    }
+
+    // Объект целиком вне пирамиды видимости: не проецируется и не рисуется
+    public static boolean isCulled(Model model, Matrix4f mvp, Camera camera) {
+        float[] bounds = model.getBounds();
+        return bounds != null
+                && GraphicConveyor.isBoxOutsideFrustum(mvp, bounds, camera.getNearPlane(), camera.getFarPlane());
+    }
+
+    private static void renderToCanvas(
+            GraphicsContext gc,
+            RenderContext context,
+            Camera camera,
+            List<SceneObject> sceneObjects,
+            int width,
+            int height,
+            int selectedModelIndex,
+            int selectedVertexIndex,
             int selectedPolygonIndex) {
 
-        Matrix4f viewMatrix = camera.getViewMatrix();
-        Matrix4f projectionMatrix = camera.getProjectionMatrix();
+        float nearPlane = camera.getNearPlane();
+        float[] segment = context.segmentBuffer();
+
+        FrameStats stats = context.getStats();
+        int culled = 0;
+        int lines = 0;
 
         for (int i = 0; i < sceneObjects.size(); i++) {
+            long mark = System.nanoTime();
             SceneObject so = sceneObjects.get(i);
             Model model = so.getModel();
-            Matrix4f modelMatrix = so.getTransform();
-
-            Matrix4f mvp = modelMatrix.multiply(viewMatrix).multiply(projectionMatrix);
+            // Кэш объекта: пересчёт только после движения камеры или смены трансформации
+            Matrix4f mvp = so.getMVP(camera);
+            if (isCulled(model, mvp, camera)) {
+                culled++;
+                lap(stats, FrameStats.Stage.SETUP, mark);
+                continue;
+            }
+            mark = lap(stats, FrameStats.Stage.SETUP, mark);
+            ProjectedVertices projection = projectSceneObject(context, so, mvp, width, height);
+            float[] screen = projection.getData();
+            float[] clip = projection.getClipData();
+            mark = lap(stats, FrameStats.Stage.PROJECTION, mark);
+            stats.addVertices(projection.size());
+            stats.addPolygons(model.getPolygonCount());
 
             if (i == selectedModelIndex) {
                 gc.setStroke(Color.RED);
@@ -43,47 +140,472 @@ public class RenderEngine {
                 gc.setLineWidth(1.0);
             }
 
-            for (int p = 0; p < model.getPolygons().size(); p++) {
-                Polygon poly = model.getPolygons().get(p);
-                boolean isSelectedPoly = (i == selectedModelIndex && p == selectedPolygonIndex);
-
-                if (isSelectedPoly) {
-                    gc.setStroke(Color.LIME);
-                    gc.setLineWidth(3.5);
-                }
+            boolean[] front = context.isBackFaceCulling() ? classifyFaces(context, model, screen) : null;
 
-                ArrayList<Vector2f> screenPoints = new ArrayList<>();
+            // Общие рёбра соседних полигонов рисуются один раз
+            int[] edges = model.getEdges();
+            int[] edgeFaces = model.getEdgeFaces();
+            for (int e = 0; e < edges.length; e += 2) {
+                if (front != null && !isEdgeVisible(front, edgeFaces, e)) continue;
+                if (!clipEdge(screen, clip, edges[e], edges[e + 1], nearPlane, width, height, segment)) continue;
+                gc.strokeLine(segment[0], segment[1], segment[2], segment[3]);
+                lines++;
+            }
 
-                for (int vi : poly.getVertexIndices()) {
-                    Vector3f vertex = model.getVertices().get(vi);
-                    Vector2f screen = vertexToPoint(
-                            multiplyMatrix4ByVector3(mvp, vertex),
-                            width, height);
-                    screenPoints.add(screen);
+            // Выбранный полигон поверх остальных рёбер
+            if (i == selectedModelIndex && isSelectedPolygonVisible(context, model, selectedPolygonIndex, front)) {
+                gc.setStroke(Color.LIME);
+                gc.setLineWidth(3.5);
+                int[] indices = model.getPolygonVertexIndices();
+                int from = model.getPolygonOffsets()[selectedPolygonIndex];
+                int to = model.getPolygonOffsets()[selectedPolygonIndex + 1];
+                for (int k = from; k < to; k++) {
+                    if (!clipEdge(screen, clip, indices[k], indices[k + 1 < to ? k + 1 : from],
+                            nearPlane, width, height, segment)) continue;
+                    gc.strokeLine(segment[0], segment[1], segment[2], segment[3]);
+                    lines++;
                 }
+            }
 
-                for (int j = 0; j < screenPoints.size(); j++) {
-                    Vector2f p1 = screenPoints.get(j);
-                    Vector2f p2 = screenPoints.get((j + 1) % screenPoints.size());
-                    gc.strokeLine(p1.x, p1.y, p2.x, p2.y);
+            if (i == selectedModelIndex && !context.getSelectedPolygons().isEmpty()) {
+                gc.setStroke(Color.LIME);
+                gc.setLineWidth(2.0);
+                int[] indices = model.getPolygonVertexIndices();
+                int[] offsets = model.getPolygonOffsets();
+                BitSet polygons = context.getSelectedPolygons();
+                for (int p = polygons.nextSetBit(0); p >= 0 && p < model.getPolygonCount(); p = polygons.nextSetBit(p + 1)) {
+                    if (front != null && !front[p]) continue;
+                    for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+                        if (!clipEdge(screen, clip, indices[k], indices[k + 1 < offsets[p + 1] ? k + 1 : offsets[p]],
+                                nearPlane, width, height, segment)) continue;
+                        gc.strokeLine(segment[0], segment[1], segment[2], segment[3]);
+                        lines++;
+                    }
                 }
+            }
 
-                if (isSelectedPoly) {
-                    gc.setStroke(i == selectedModelIndex ? Color.RED : Color.BLACK);
-                    gc.setLineWidth(i == selectedModelIndex ? 1.5 : 1.0);
+            if (i == selectedModelIndex) {
+                gc.setFill(Color.BLUE);
+                BitSet vertices = context.getSelectedVertices();
+                for (int v = vertices.nextSetBit(0); v >= 0; v = vertices.nextSetBit(v + 1)) {
+                    if (!isVertexVisible(model, v, screen, nearPlane)) continue;
+                    int o = v * ProjectedVertices.STRIDE;
+                    gc.fillRect(screen[o] - 2, screen[o + 1] - 2, 4, 4);
                 }
             }
 
-            if (i == selectedModelIndex && selectedVertexIndex >= 0 && selectedVertexIndex < model.getVertices().size()) {
-                Vector3f vertex = model.getVertices().get(selectedVertexIndex);
-                Vector2f screen = vertexToPoint(multiplyMatrix4ByVector3(mvp, vertex), width, height);
+            if (i == selectedModelIndex && isVertexVisible(model, selectedVertexIndex, screen, nearPlane)) {
+                int o = selectedVertexIndex * ProjectedVertices.STRIDE;
+                float x = screen[o];
+                float y = screen[o + 1];
 
                 gc.setFill(Color.BLUE);
-                gc.fillOval(screen.x - 5, screen.y - 5, 10, 10);
+                gc.fillOval(x - 5, y - 5, 10, 10);
                 gc.setStroke(Color.WHITE);
                 gc.setLineWidth(1.8);
-                gc.strokeOval(screen.x - 5, screen.y - 5, 10, 10);
+                gc.strokeOval(x - 5, y - 5, 10, 10);
+            }
+            lap(stats, FrameStats.Stage.DRAW, mark);
+        }
+        context.setCulledObjectCount(culled);
+        stats.addEdges(lines);
+    }
+
+    // Программная растеризация рёбер в int[] ARGB буфер
+    private static void renderToFrameBuffer(
+            FrameBuffer fb,
+            RenderContext context,
+            Camera camera,
+            List<SceneObject> sceneObjects,
+            int width,
+            int height,
+            int selectedModelIndex,
+            int selectedVertexIndex,
+            int selectedPolygonIndex) {
+
+        float nearPlane = camera.getNearPlane();
+        float[] segment = context.segmentBuffer();
+        PrimitiveBuffer primitives = context.getPrimitives();
+        Vector2f selectedVertex = null;
+        float[] selectedScreen = null;
+        Model selectedModel = null;
+
+        FrameStats stats = context.getStats();
+        int culled = 0;
+
+        for (int i = 0; i < sceneObjects.size(); i++) {
+            long mark = System.nanoTime();
+            SceneObject so = sceneObjects.get(i);
+            Model model = so.getModel();
+            Matrix4f mvp = so.getMVP(camera);
+            if (isCulled(model, mvp, camera)) {
+                culled++;
+                lap(stats, FrameStats.Stage.SETUP, mark);
+                continue;
+            }
+            mark = lap(stats, FrameStats.Stage.SETUP, mark);
+            ProjectedVertices projection = projectSceneObject(context, so, mvp, width, height);
+            float[] screen = projection.getData();
+            float[] clip = projection.getClipData();
+            mark = lap(stats, FrameStats.Stage.PROJECTION, mark);
+            stats.addVertices(projection.size());
+            stats.addPolygons(model.getPolygonCount());
+
+            boolean isSelectedModel = (i == selectedModelIndex);
+            int modelColor = isSelectedModel ? SELECTED_MODEL_COLOR : MODEL_COLOR;
+            int modelThickness = Rasterizer.thickness(isSelectedModel ? 1.5 : 1.0);
+
+            boolean[] front = context.isBackFaceCulling() ? classifyFaces(context, model, screen) : null;
+
+            int[] edges = model.getEdges();
+            int[] edgeFaces = model.getEdgeFaces();
+            for (int e = 0; e < edges.length; e += 2) {
+                if (front != null && !isEdgeVisible(front, edgeFaces, e)) continue;
+                if (!clipEdge(screen, clip, edges[e], edges[e + 1], nearPlane, width, height, segment)) continue;
+                // Ребро выбирается как первый из его полигонов
+                primitives.addLine(segment[0], segment[1], segment[2], segment[3], modelColor, modelThickness,
+                        context.pickId(i, edgeFaces[e]));
+            }
+
+            if (isSelectedModel && isSelectedPolygonVisible(context, model, selectedPolygonIndex, front)) {
+                int thickness = Rasterizer.thickness(3.5);
+                int id = context.pickId(i, selectedPolygonIndex);
+                int[] indices = model.getPolygonVertexIndices();
+                int from = model.getPolygonOffsets()[selectedPolygonIndex];
+                int to = model.getPolygonOffsets()[selectedPolygonIndex + 1];
+                for (int k = from; k < to; k++) {
+                    if (!clipEdge(screen, clip, indices[k], indices[k + 1 < to ? k + 1 : from],
+                            nearPlane, width, height, segment)) continue;
+                    primitives.addLine(segment[0], segment[1], segment[2], segment[3],
+                            SELECTED_POLYGON_COLOR, thickness, id);
+                }
+            }
+
+            if (isSelectedModel && !context.getSelectedPolygons().isEmpty()) {
+                int thickness = Rasterizer.thickness(2.0);
+                int[] indices = model.getPolygonVertexIndices();
+                int[] offsets = model.getPolygonOffsets();
+                BitSet polygons = context.getSelectedPolygons();
+                for (int p = polygons.nextSetBit(0); p >= 0 && p < model.getPolygonCount(); p = polygons.nextSetBit(p + 1)) {
+                    if (front != null && !front[p]) continue;
+                    int id = context.pickId(i, p);
+                    for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+                        if (!clipEdge(screen, clip, indices[k], indices[k + 1 < offsets[p + 1] ? k + 1 : offsets[p]],
+                                nearPlane, width, height, segment)) continue;
+                        primitives.addLine(segment[0], segment[1], segment[2], segment[3],
+                                SELECTED_POLYGON_COLOR, thickness, id);
+                    }
+                }
+            }
+            if (isSelectedModel) {
+                selectedScreen = screen;
+                selectedModel = model;
+            }
+
+            if (isSelectedModel && isVertexVisible(model, selectedVertexIndex, screen, nearPlane)) {
+                int o = selectedVertexIndex * ProjectedVertices.STRIDE;
+                selectedVertex = new Vector2f(screen[o], screen[o + 1]);
+            }
+            lap(stats, FrameStats.Stage.DRAW, mark);
+        }
+
+        stats.addEdges(primitives.size());
+        context.setCulledObjectCount(culled);
+        long mark = System.nanoTime();
+        context.flushPrimitives();
+        drawSelectedVertices(fb, context, selectedModel, selectedScreen, nearPlane);
+        drawVertexMarker(fb, selectedVertex);
+        lap(stats, FrameStats.Stage.RASTERIZE, mark);
+    }
+
+    // Закрашенные полигоны с удалением невидимых поверхностей по буферу глубины
+    private static void renderSolid(
+            FrameBuffer fb,
+            RenderContext context,
+            Camera camera,
+            List<SceneObject> sceneObjects,
+            int width,
+            int height,
+            int selectedModelIndex,
+            int selectedVertexIndex,
+            int selectedPolygonIndex) {
+
+        Matrix4f projectionMatrix = camera.getProjectionMatrix();
+        float nearPlane = camera.getNearPlane();
+        // Для восстановления видовых координат из однородных
+        float invScaleX = 1.0f / projectionMatrix.get(0, 0);
+        float invScaleY = 1.0f / projectionMatrix.get(1, 1);
+        PrimitiveBuffer primitives = context.getPrimitives();
+        Vector2f selectedVertex = null;
+        float[] selectedScreen = null;
+        Model selectedModel = null;
+
+        FrameStats stats = context.getStats();
+        int culled = 0;
+
+        for (int i = 0; i < sceneObjects.size(); i++) {
+            long mark = System.nanoTime();
+            SceneObject so = sceneObjects.get(i);
+            Model model = so.getModel();
+            Matrix4f mvp = so.getMVP(camera);
+            if (isCulled(model, mvp, camera)) {
+                culled++;
+                lap(stats, FrameStats.Stage.SETUP, mark);
+                continue;
             }
+            mark = lap(stats, FrameStats.Stage.SETUP, mark);
+            ProjectedVertices projection = projectSceneObject(context, so, mvp, width, height);
+            float[] screen = projection.getData();
+            float[] clip = projection.getClipData();
+            mark = lap(stats, FrameStats.Stage.PROJECTION, mark);
+            stats.addVertices(projection.size());
+            stats.addPolygons(model.getPolygonCount());
+
+            boolean isSelectedModel = (i == selectedModelIndex);
+            int modelColor = isSelectedModel ? SELECTED_MODEL_COLOR : SOLID_MODEL_COLOR;
+
+            int[] offsets = model.getPolygonOffsets();
+            int[] indices = model.getPolygonVertexIndices();
+            for (int p = 0; p < model.getPolygonCount(); p++) {
+                int from = offsets[p];
+                int n = offsets[p + 1] - from;
+                if (n < 3) continue;
+                boolean isSelectedPoly = isSelectedModel
+                        && (p == selectedPolygonIndex || context.getSelectedPolygons().get(p));
+                if (context.isBackFaceCulling() && !isFrontFacing(indices, from, from + n, screen)
+                        && !(isSelectedPoly && context.isKeepSelectedPolygonVisible())) {
+                    continue;
+                }
+
+                // Однородные x, y и глубина; полигон, пересекающий ближнюю плоскость, обрезается по ней
+                float[] vertices = context.clipBuffer(n * 3);
+                boolean crossesNear = false;
+                for (int j = 0; j < n; j++) {
+                    int index = indices[from + j];
+                    int c = index * ProjectedVertices.CLIP_STRIDE;
+                    vertices[j * 3] = clip[c];
+                    vertices[j * 3 + 1] = clip[c + 1];
+                    vertices[j * 3 + 2] = screen[index * ProjectedVertices.STRIDE + 2];
+                    crossesNear |= vertices[j * 3 + 2] < nearPlane;
+                }
+                if (crossesNear) {
+                    float[] clipped = context.clippedBuffer((n + 1) * 3);
+                    n = GraphicConveyor.clipPolygonNear(vertices, n, nearPlane, clipped);
+                    if (n < 3) continue;
+                    vertices = clipped;
+                }
+
+                float[] buf = context.polygonBuffer(n * SOLID_STRIDE);
+                for (int j = 0; j < n; j++) {
+                    float x = vertices[j * 3];
+                    float y = vertices[j * 3 + 1];
+                    float depth = vertices[j * 3 + 2];
+                    int o = j * SOLID_STRIDE;
+                    buf[o] = GraphicConveyor.clipToScreenX(x, depth, width);
+                    buf[o + 1] = GraphicConveyor.clipToScreenY(y, depth, height);
+                    buf[o + 2] = 1.0f / depth;
+
+                    // Видовые координаты: x_clip = P00 * x_view, y_clip = P11 * y_view
+                    buf[o + 4] = x * invScaleX;
+                    buf[o + 5] = y * invScaleY;
+                    buf[o + 6] = depth;
+                }
+
+                int color = Rasterizer.shade(
+                        isSelectedPoly ? SELECTED_POLYGON_COLOR : modelColor,
+                        faceIntensity(buf, n));
+                int id = context.pickId(i, p);
+
+                // Веерная триангуляция относительно первой вершины
+                for (int j = 1; j + 1 < n; j++) {
+                    int a = j * SOLID_STRIDE;
+                    int b = (j + 1) * SOLID_STRIDE;
+                    primitives.addTriangle(
+                            buf[0], buf[1], buf[2],
+                            buf[a], buf[a + 1], buf[a + 2],
+                            buf[b], buf[b + 1], buf[b + 2],
+                            color, id);
+                }
+            }
+
+            if (isSelectedModel && isVertexVisible(model, selectedVertexIndex, screen, nearPlane)) {
+                int o = selectedVertexIndex * ProjectedVertices.STRIDE;
+                selectedVertex = new Vector2f(screen[o], screen[o + 1]);
+            }
+            if (isSelectedModel) {
+                selectedScreen = screen;
+                selectedModel = model;
+            }
+            lap(stats, FrameStats.Stage.DRAW, mark);
+        }
+
+        context.setCulledObjectCount(culled);
+        long mark = System.nanoTime();
+        context.flushPrimitives();
+        drawSelectedVertices(fb, context, selectedModel, selectedScreen, nearPlane);
+        drawVertexMarker(fb, selectedVertex);
+        lap(stats, FrameStats.Stage.RASTERIZE, mark);
+    }
+
+    // Лицевые полигоны обходятся на экране (ось y вниз) с положительной ориентированной площадью.
+    // Полигоны с вершинами за камерой считаются лицевыми: их экранный обход ненадёжен
+    static boolean isFrontFacing(int[] indices, int from, int to, float[] screen) {
+        float area = 0;
+        for (int k = from; k < to; k++) {
+            int a = indices[k] * ProjectedVertices.STRIDE;
+            int b = indices[k + 1 < to ? k + 1 : from] * ProjectedVertices.STRIDE;
+            if (screen[a + 2] <= 0) {
+                return true;
+            }
+            area += screen[a] * screen[b + 1] - screen[b] * screen[a + 1];
+        }
+        return area > 0;
+    }
+
+    // Ребро a-b после отсечения ближней плоскостью и экраном с запасом; концы x0 y0 x1 y1 в out.
+    // false — от ребра ничего не осталось
+    private static boolean clipEdge(float[] screen, float[] clip, int a, int b, float nearPlane,
+                                    int width, int height, float[] out) {
+        int sa = a * ProjectedVertices.STRIDE;
+        int sb = b * ProjectedVertices.STRIDE;
+        float da = screen[sa + 2];
+        float db = screen[sb + 2];
+        if (da >= nearPlane && db >= nearPlane) {
+            out[0] = screen[sa];
+            out[1] = screen[sa + 1];
+            out[2] = screen[sb];
+            out[3] = screen[sb + 1];
+        } else {
+            int ca = a * ProjectedVertices.CLIP_STRIDE;
+            int cb = b * ProjectedVertices.CLIP_STRIDE;
+            if (!GraphicConveyor.clipSegmentNear(clip[ca], clip[ca + 1], da, clip[cb], clip[cb + 1], db,
+                    nearPlane, out)) {
+                return false;
+            }
+            float x0 = GraphicConveyor.clipToScreenX(out[0], out[2], width);
+            float y0 = GraphicConveyor.clipToScreenY(out[1], out[2], height);
+            float x1 = GraphicConveyor.clipToScreenX(out[3], out[5], width);
+            float y1 = GraphicConveyor.clipToScreenY(out[4], out[5], height);
+            out[0] = x0;
+            out[1] = y0;
+            out[2] = x1;
+            out[3] = y1;
+        }
+        return GraphicConveyor.clipSegmentRect(out, -GUARD_BAND, -GUARD_BAND, width + GUARD_BAND, height + GUARD_BAND);
+    }
+
+    // Вершина перед ближней плоскостью: только её проекции можно верить
+    private static boolean isVertexVisible(Model model, int vertexIndex, float[] screen, float nearPlane) {
+        return vertexIndex >= 0 && vertexIndex < model.getVertexCount()
+                && screen[vertexIndex * ProjectedVertices.STRIDE + 2] >= nearPlane;
+    }
+
+    private static boolean[] classifyFaces(RenderContext context, Model model, float[] screen) {
+        int[] offsets = model.getPolygonOffsets();
+        int[] indices = model.getPolygonVertexIndices();
+        boolean[] front = context.faceBuffer(model.getPolygonCount());
+        for (int p = 0; p < model.getPolygonCount(); p++) {
+            front[p] = isFrontFacing(indices, offsets[p], offsets[p + 1], screen);
+        }
+        return front;
+    }
+
+    // Ребро видно, если видна хотя бы одна из его граней
+    private static boolean isEdgeVisible(boolean[] front, int[] edgeFaces, int e) {
+        int f1 = edgeFaces[e + 1];
+        return front[edgeFaces[e]] || f1 < -1 || (f1 >= 0 && front[f1]);
+    }
+
+    private static boolean isSelectedPolygonVisible(RenderContext context, Model model, int polygonIndex, boolean[] front) {
+        if (polygonIndex < 0 || polygonIndex >= model.getPolygonCount()) {
+            return false;
+        }
+        return front == null || context.isKeepSelectedPolygonVisible() || front[polygonIndex];
+    }
+
+    // Добавляет к стадии время с отметки mark и возвращает новую отметку
+    private static long lap(FrameStats stats, FrameStats.Stage stage, long mark) {
+        long now = System.nanoTime();
+        stats.addStageTime(stage, now - mark);
+        return now;
+    }
+
+    // Оверлей со временем кадра поверх картинки
+    private static void drawHud(GraphicsContext gc, FrameStats stats) {
+        if (stats.size() == 0) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("FPS %d   frame %.2f ms   p50 %.2f   p99 %.2f%n",
+                stats.getFramesPerSecond(), millis(stats.getFrameNanos(0)),
+                millis(stats.percentileFrameNanos(50)), millis(stats.percentileFrameNanos(99))));
+        for (FrameStats.Stage stage : FrameStats.Stage.values()) {
+            text.append(String.format("%-10s %.2f ms%n", stage.name().toLowerCase(), millis(stats.getStageNanos(0, stage))));
+        }
+        text.append(String.format("vertices %d   polygons %d   edges %d%n",
+                stats.getVertexCount(0), stats.getPolygonCount(0), stats.getEdgeCount(0)));
+        long allocated = stats.getAllocatedBytes(0);
+        if (allocated >= 0) {
+            text.append(String.format("allocated %d KB%n", allocated / 1024));
+        }
+        text.append(String.format("picking %.2f ms", millis(stats.getLastPickNanos())));
+
+        gc.save();
+        gc.setFill(HUD_BACKGROUND);
+        gc.fillRect(8, 8, 330, 150);
+        gc.setFill(Color.WHITE);
+        gc.setFont(HUD_FONT);
+        gc.fillText(text.toString(), 16, 26);
+        gc.restore();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // Вершины множественного выделения — квадраты 4x4 поверх моделей
+    private static void drawSelectedVertices(FrameBuffer fb, RenderContext context, Model model,
+                                             float[] screen, float nearPlane) {
+        if (model == null) {
+            return;
+        }
+        BitSet vertices = context.getSelectedVertices();
+        for (int v = vertices.nextSetBit(0); v >= 0; v = vertices.nextSetBit(v + 1)) {
+            if (!isVertexVisible(model, v, screen, nearPlane)) continue;
+            int o = v * ProjectedVertices.STRIDE;
+            int x = Math.round(screen[o]) - 2;
+            int y = Math.round(screen[o + 1]) - 2;
+            for (int dy = 0; dy < 4; dy++) {
+                for (int dx = 0; dx < 4; dx++) {
+                    fb.setPixel(x + dx, y + dy, SELECTED_VERTEX_COLOR);
+                }
+            }
+        }
+    }
+
+    // Маркер выбранной вершины рисуется поверх всех моделей
+    private static void drawVertexMarker(FrameBuffer fb, Vector2f screen) {
+        if (screen == null) {
+            return;
+        }
+        Rasterizer.fillCircle(fb, screen.x, screen.y, 5, SELECTED_VERTEX_COLOR);
+        Rasterizer.strokeCircle(fb, screen.x, screen.y, 5, VERTEX_OUTLINE_COLOR, 1.8f);
+    }
+
+    // Освещение "фонариком" из камеры: нормаль по Ньюэллу в видовом пространстве
+    private static float faceIntensity(float[] buf, int n) {
+        float nx = 0, ny = 0, nz = 0;
+        for (int j = 0; j < n; j++) {
+            int a = j * SOLID_STRIDE + 4;
+            int b = ((j + 1) % n) * SOLID_STRIDE + 4;
+            nx += (buf[a + 1] - buf[b + 1]) * (buf[a + 2] + buf[b + 2]);
+            ny += (buf[a + 2] - buf[b + 2]) * (buf[a] + buf[b]);
+            nz += (buf[a] - buf[b]) * (buf[a + 1] + buf[b + 1]);
+        }
+        float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (length == 0) {
+            return AMBIENT;
         }
+        return AMBIENT + (1.0f - AMBIENT) * Math.abs(nz) / length;
     }
 }
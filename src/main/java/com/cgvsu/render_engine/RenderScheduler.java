@@ -0,0 +1,67 @@
+package com.cgvsu.render_engine;
+
+import javafx.animation.AnimationTimer;
+
+// Перерисовка по требованию: изменения сцены только помечают кадр устаревшим,
+// а рисуется он один раз на ближайшем импульсе JavaFX. Несколько запросов
+// между импульсами сливаются в один кадр, в простое таймер остановлен
+public class RenderScheduler {
+    private final Runnable renderer;
+    private final Runnable startPulses;
+    private final Runnable stopPulses;
+    private boolean dirty;
+    private boolean running;
+
+    public RenderScheduler(Runnable renderer) {
+        checkRenderer(renderer);
+        this.renderer = renderer;
+        AnimationTimer timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                pulse();
+            }
+        };
+        this.startPulses = timer::start;
+        this.stopPulses = timer::stop;
+    }
+
+    // Источник импульсов снаружи: AnimationTimer без запущенного JavaFX не создать,
+    // поэтому тесты подставляют свои start/stop и сами вызывают pulse()
+    RenderScheduler(Runnable renderer, Runnable startPulses, Runnable stopPulses) {
+        checkRenderer(renderer);
+        this.renderer = renderer;
+        this.startPulses = startPulses;
+        this.stopPulses = stopPulses;
+    }
+
+    private static void checkRenderer(Runnable renderer) {
+        if (renderer == null) {
+            throw new IllegalArgumentException("Renderer must not be null");
+        }
+    }
+
+    // Вызывается из потока JavaFX при любом изменении, влияющем на картинку
+    public void requestRender() {
+        dirty = true;
+        if (!running) {
+            running = true;
+            startPulses.run();
+        }
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    // Один импульс таймера
+    void pulse() {
+        if (!dirty) {
+            // Кадр без изменений: выключаемся до следующего запроса
+            stopPulses.run();
+            running = false;
+            return;
+        }
+        dirty = false;
+        renderer.run();
+    }
+}
@@ -0,0 +1,263 @@
+package com.cgvsu.render_engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Равномерная сетка над экранными проекциями вершин одного кадра. Запрос прямоугольником
+// или лассо смотрит только задетые ячейки; ячейки целиком внутри области берутся без
+// проверки отдельных вершин, поэтому выделение остаётся быстрым и на миллионах вершин
+public class ScreenGrid {
+    private static final int CELL_SIZE = 16;
+
+    private int columns;
+    private int rows;
+    // Вершины ячейки c — items[cellStart[c]] .. items[cellStart[c + 1] - 1]
+    private int[] cellStart = new int[1];
+    private int[] items = new int[0];
+    private float[] screen = new float[0];
+
+    // Раскладывает по ячейкам вершины перед ближней плоскостью, попавшие на экран
+    public void build(ProjectedVertices projection, int width, int height, float nearPlane) {
+        columns = Math.max(1, (width + CELL_SIZE - 1) / CELL_SIZE);
+        rows = Math.max(1, (height + CELL_SIZE - 1) / CELL_SIZE);
+        screen = projection.getData();
+        int count = projection.size();
+
+        int cells = columns * rows;
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+        } else {
+            Arrays.fill(cellStart, 0, cells + 1, 0);
+        }
+        // Сортировка подсчётом: сначала размеры ячеек, затем раскладка
+        for (int v = 0; v < count; v++) {
+            int c = cellOf(v, width, height, nearPlane);
+            if (c >= 0) {
+                cellStart[c + 1]++;
+            }
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        if (items.length < cellStart[cells]) {
+            items = new int[cellStart[cells]];
+        }
+        int[] cursor = Arrays.copyOf(cellStart, cells);
+        for (int v = 0; v < count; v++) {
+            int c = cellOf(v, width, height, nearPlane);
+            if (c >= 0) {
+                items[cursor[c]++] = v;
+            }
+        }
+    }
+
+    private int cellOf(int v, int width, int height, float nearPlane) {
+        int o = v * ProjectedVertices.STRIDE;
+        float x = screen[o];
+        float y = screen[o + 1];
+        // NaN отсеивается этими же сравнениями
+        if (!(screen[o + 2] >= nearPlane && x >= 0 && x < width && y >= 0 && y < height)) {
+            return -1;
+        }
+        return (int) y / CELL_SIZE * columns + (int) x / CELL_SIZE;
+    }
+
+    // Вершины внутри прямоугольника с углами (x0, y0) и (x1, y1) добавляются в out
+    public void queryRect(float x0, float y0, float x1, float y1, BitSet out) {
+        float minX = Math.min(x0, x1);
+        float maxX = Math.max(x0, x1);
+        float minY = Math.min(y0, y1);
+        float maxY = Math.max(y0, y1);
+        int c0 = clampColumn(minX);
+        int c1 = clampColumn(maxX);
+        int r0 = clampRow(minY);
+        int r1 = clampRow(maxY);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * columns + c;
+                boolean inside = c * CELL_SIZE >= minX && (c + 1) * CELL_SIZE <= maxX
+                        && r * CELL_SIZE >= minY && (r + 1) * CELL_SIZE <= maxY;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int v = items[i];
+                    int o = v * ProjectedVertices.STRIDE;
+                    if (inside || (screen[o] >= minX && screen[o] <= maxX
+                            && screen[o + 1] >= minY && screen[o + 1] <= maxY)) {
+                        out.set(v);
+                    }
+                }
+            }
+        }
+    }
+
+    // Вершины внутри замкнутого контура lasso (x0, y0, x1, y1, ...) по правилу чётности.
+    // Ячейки, которых контур не касается, целиком внутри или снаружи — это решает проверка
+    // одной опорной точки. В остальных чётность вершины равна чётности опорной точки плюс
+    // число пересечений отрезка от неё до вершины с рёбрами, задевающими эту ячейку
+    public void queryLasso(float[] lasso, int pointCount, BitSet out) {
+        if (pointCount < 3) {
+            return;
+        }
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int k = 0; k < pointCount; k++) {
+            minX = Math.min(minX, lasso[2 * k]);
+            maxX = Math.max(maxX, lasso[2 * k]);
+            minY = Math.min(minY, lasso[2 * k + 1]);
+            maxY = Math.max(maxY, lasso[2 * k + 1]);
+        }
+        int c0 = clampColumn(minX);
+        int c1 = clampColumn(maxX);
+        int r0 = clampRow(minY);
+        int r1 = clampRow(maxY);
+        int spanX = c1 - c0 + 1;
+        int span = spanX * (r1 - r0 + 1);
+
+        // Рёбра контура по ячейкам окна [c0, c1] x [r0, r1] в формате CSR
+        EdgeCells edgeCells = new EdgeCells(span);
+        for (int k = 0; k < pointCount; k++) {
+            int next = k + 1 < pointCount ? k + 1 : 0;
+            markEdge(lasso[2 * k], lasso[2 * k + 1], lasso[2 * next], lasso[2 * next + 1], k,
+                    c0, c1, r0, r1, spanX, edgeCells);
+        }
+        int[] edgeStart = new int[span + 1];
+        for (int i = 0; i < edgeCells.size; i++) {
+            edgeStart[edgeCells.cells[i] + 1]++;
+        }
+        for (int i = 0; i < span; i++) {
+            edgeStart[i + 1] += edgeStart[i];
+        }
+        int[] cellEdges = new int[edgeCells.size];
+        int[] cursor = Arrays.copyOf(edgeStart, span);
+        for (int i = 0; i < edgeCells.size; i++) {
+            cellEdges[cursor[edgeCells.cells[i]]++] = edgeCells.edges[i];
+        }
+
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * columns + c;
+                if (cellStart[cell] == cellStart[cell + 1]) continue;
+                // Опорная точка внутри ячейки в стороне от целых координат, по которым идёт мышь
+                float refX = c * CELL_SIZE + CELL_SIZE * 0.5f + 0.3183f;
+                float refY = r * CELL_SIZE + CELL_SIZE * 0.5f + 0.2718f;
+                boolean refInside = contains(lasso, pointCount, refX, refY);
+                int local = (r - r0) * spanX + (c - c0);
+                int from = edgeStart[local];
+                int to = edgeStart[local + 1];
+                if (from == to) {
+                    if (refInside) {
+                        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                            out.set(items[i]);
+                        }
+                    }
+                    continue;
+                }
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int o = items[i] * ProjectedVertices.STRIDE;
+                    float x = screen[o];
+                    float y = screen[o + 1];
+                    boolean inside = refInside;
+                    for (int e = from; e < to; e++) {
+                        int k = cellEdges[e];
+                        int next = k + 1 < pointCount ? k + 1 : 0;
+                        if (crosses(refX, refY, x, y, lasso[2 * k], lasso[2 * k + 1],
+                                lasso[2 * next], lasso[2 * next + 1])) {
+                            inside = !inside;
+                        }
+                    }
+                    if (inside) {
+                        out.set(items[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    // Отрезок делится на куски не длиннее ячейки; кусок лежит в своём прямоугольнике,
+    // а тот задевает не больше двух ячеек по каждой оси — ребро записывается во все
+    private void markEdge(float x0, float y0, float x1, float y1, int edge,
+                          int c0, int c1, int r0, int r1, int spanX, EdgeCells edgeCells) {
+        float length = Math.max(Math.abs(x1 - x0), Math.abs(y1 - y0));
+        int pieces = Math.max(1, (int) Math.ceil(length / CELL_SIZE));
+        for (int s = 0; s < pieces; s++) {
+            float ax = x0 + (x1 - x0) * s / pieces;
+            float ay = y0 + (y1 - y0) * s / pieces;
+            float bx = x0 + (x1 - x0) * (s + 1) / pieces;
+            float by = y0 + (y1 - y0) * (s + 1) / pieces;
+            int fromC = Math.max(c0, (int) Math.floor(Math.min(ax, bx) / CELL_SIZE));
+            int toC = Math.min(c1, (int) Math.floor(Math.max(ax, bx) / CELL_SIZE));
+            int fromR = Math.max(r0, (int) Math.floor(Math.min(ay, by) / CELL_SIZE));
+            int toR = Math.min(r1, (int) Math.floor(Math.max(ay, by) / CELL_SIZE));
+            for (int r = fromR; r <= toR; r++) {
+                for (int c = fromC; c <= toC; c++) {
+                    edgeCells.add((r - r0) * spanX + (c - c0), edge);
+                }
+            }
+        }
+    }
+
+    // Пары (ячейка, ребро) без повторов: куски одного ребра идут подряд,
+    // поэтому достаточно помнить последнее записанное в ячейку ребро
+    private static class EdgeCells {
+        private final int[] lastEdge;
+        private int[] cells = new int[64];
+        private int[] edges = new int[64];
+        private int size;
+
+        EdgeCells(int span) {
+            lastEdge = new int[span];
+            Arrays.fill(lastEdge, -1);
+        }
+
+        void add(int cell, int edge) {
+            if (lastEdge[cell] == edge) {
+                return;
+            }
+            lastEdge[cell] = edge;
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+                edges = Arrays.copyOf(edges, size * 2);
+            }
+            cells[size] = cell;
+            edges[size] = edge;
+            size++;
+        }
+    }
+
+    // Пересекает ли отрезок p-q ребро a-b. Концы ребра на прямой p-q относятся к одной
+    // стороне, так что вершина контура на пути считается ровно одним из двух её рёбер
+    private static boolean crosses(float px, float py, float qx, float qy,
+                                   float ax, float ay, float bx, float by) {
+        boolean aSide = orient(px, py, qx, qy, ax, ay) > 0;
+        boolean bSide = orient(px, py, qx, qy, bx, by) > 0;
+        if (aSide == bSide) {
+            return false;
+        }
+        float op = orient(ax, ay, bx, by, px, py);
+        float oq = orient(ax, ay, bx, by, qx, qy);
+        return (op > 0) != (oq > 0);
+    }
+
+    private static float orient(float ax, float ay, float bx, float by, float cx, float cy) {
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+
+    static boolean contains(float[] lasso, int pointCount, float x, float y) {
+        boolean inside = false;
+        for (int k = 0, j = pointCount - 1; k < pointCount; j = k++) {
+            float xk = lasso[2 * k], yk = lasso[2 * k + 1];
+            float xj = lasso[2 * j], yj = lasso[2 * j + 1];
+            if ((yk > y) != (yj > y) && x < (xj - xk) * (y - yk) / (yj - yk) + xk) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private int clampColumn(float x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor(x / CELL_SIZE)));
+    }
+
+    private int clampRow(float y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / CELL_SIZE)));
+    }
+}
@@ -0,0 +1,113 @@
+package com.cgvsu.render_engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Раскладывает примитивы по экранным тайлам и растеризует тайлы независимо.
+// Каждый пиксель принадлежит ровно одному тайлу, а внутри тайла примитивы идут
+// в порядке отправки, поэтому картинка совпадает с однопоточной
+public class TileRasterizer {
+    public static final int TILE_SIZE = 64;
+
+    private int tilesX;
+    private int tilesY;
+    private int[][] tileLists = new int[0][];
+    private int[] tileCounts = new int[0];
+
+    public void execute(FrameBuffer fb, PrimitiveBuffer primitives, ForkJoinPool pool) {
+        bin(fb.getWidth(), fb.getHeight(), primitives);
+        int tileCount = tilesX * tilesY;
+        if (pool == null || tileCount < 2) {
+            for (int t = 0; t < tileCount; t++) {
+                rasterizeTile(fb, primitives, t);
+            }
+        } else {
+            pool.invoke(new TileTask(fb, primitives, 0, tileCount));
+        }
+    }
+
+    private void bin(int width, int height, PrimitiveBuffer primitives) {
+        tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        int tileCount = tilesX * tilesY;
+        if (tileLists.length < tileCount) {
+            int[][] grown = Arrays.copyOf(tileLists, tileCount);
+            for (int t = tileLists.length; t < tileCount; t++) {
+                grown[t] = new int[64];
+            }
+            tileLists = grown;
+            tileCounts = new int[tileCount];
+        }
+        Arrays.fill(tileCounts, 0, tileCount, 0);
+
+        int[] bounds = primitives.bounds();
+        for (int i = 0; i < primitives.size(); i++) {
+            int b = i * PrimitiveBuffer.BOUNDS_STRIDE;
+            if (bounds[b] > bounds[b + 2] || bounds[b + 1] > bounds[b + 3]) {
+                continue;
+            }
+            int minTx = Math.max(0, Math.floorDiv(bounds[b], TILE_SIZE));
+            int minTy = Math.max(0, Math.floorDiv(bounds[b + 1], TILE_SIZE));
+            int maxTx = Math.min(tilesX - 1, Math.floorDiv(bounds[b + 2], TILE_SIZE));
+            int maxTy = Math.min(tilesY - 1, Math.floorDiv(bounds[b + 3], TILE_SIZE));
+            for (int ty = minTy; ty <= maxTy; ty++) {
+                for (int tx = minTx; tx <= maxTx; tx++) {
+                    append(ty * tilesX + tx, i);
+                }
+            }
+        }
+    }
+
+    private void append(int tile, int primitive) {
+        int[] list = tileLists[tile];
+        int n = tileCounts[tile];
+        if (n == list.length) {
+            list = Arrays.copyOf(list, n * 2);
+            tileLists[tile] = list;
+        }
+        list[n] = primitive;
+        tileCounts[tile] = n + 1;
+    }
+
+    private void rasterizeTile(FrameBuffer fb, PrimitiveBuffer primitives, int tile) {
+        int minX = (tile % tilesX) * TILE_SIZE;
+        int minY = (tile / tilesX) * TILE_SIZE;
+        int maxX = Math.min(minX + TILE_SIZE, fb.getWidth()) - 1;
+        int maxY = Math.min(minY + TILE_SIZE, fb.getHeight()) - 1;
+        int[] list = tileLists[tile];
+        int n = tileCounts[tile];
+        for (int k = 0; k < n; k++) {
+            primitives.draw(fb, list[k], minX, minY, maxX, maxY);
+        }
+    }
+
+    private class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int TILES_PER_TASK = 4;
+
+        private final FrameBuffer fb;
+        private final PrimitiveBuffer primitives;
+        private final int from;
+        private final int to;
+
+        TileTask(FrameBuffer fb, PrimitiveBuffer primitives, int from, int to) {
+            this.fb = fb;
+            this.primitives = primitives;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TILES_PER_TASK) {
+                for (int t = from; t < to; t++) {
+                    rasterizeTile(fb, primitives, t);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileTask(fb, primitives, from, mid), new TileTask(fb, primitives, mid, to));
+        }
+    }
+}
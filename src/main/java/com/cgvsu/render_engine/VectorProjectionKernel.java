@@ -0,0 +1,137 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+// Проекция на jdk.incubator.vector: L вершин за шаг, L — ширина регистра в float.
+// Блок из L вершин — это 3L подряд идущих координат, то есть три вектора. x, y, z
+// собираются из них перестановками и смешиванием, а результаты так же раскладываются
+// обратно. Gather/scatter по индексам не используются: на JDK 17 с AVX-512 C2 на них падает.
+// Операции те же и в том же порядке, что в скалярном цикле, поэтому результат совпадает до бита.
+// Класс загружается только при доступном модуле, см. ProjectedVertices
+final class VectorProjectionKernel implements ProjectionKernel {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // Таблицы перестановок и масок — массивы обобщённых типов: иначе их не создать,
+    // а List в горячем цикле мешает C2 свернуть обращения в константы
+    // Дорожка j компоненты c берётся из вектора (3j + c) / L, позиции (3j + c) % L
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorShuffle<Float>[] LOAD = new VectorShuffle[3];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorMask<Float>[][] LOAD_FROM = new VectorMask[3][3];
+    // Дорожка i k-го выходного вектора — компонента (kL + i) % 3 вершины (kL + i) / 3
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorShuffle<Float>[] STORE3 = new VectorShuffle[3];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorMask<Float>[][] STORE3_COMPONENT = new VectorMask[3][3];
+    // То же для пар x, y: компонента (kL + i) % 2 вершины (kL + i) / 2
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorShuffle<Float>[] STORE2 = new VectorShuffle[2];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorMask<Float>[] STORE2_Y = new VectorMask[2];
+
+    static {
+        for (int c = 0; c < 3; c++) {
+            int[] index = new int[LANES];
+            for (int j = 0; j < LANES; j++) {
+                index[j] = (3 * j + c) % LANES;
+            }
+            LOAD[c] = VectorShuffle.fromArray(SPECIES, index, 0);
+            for (int k = 0; k < 3; k++) {
+                boolean[] lanes = new boolean[LANES];
+                for (int j = 0; j < LANES; j++) {
+                    lanes[j] = (3 * j + c) / LANES == k;
+                }
+                LOAD_FROM[c][k] = VectorMask.fromArray(SPECIES, lanes, 0);
+            }
+        }
+        for (int k = 0; k < 3; k++) {
+            int[] index = new int[LANES];
+            for (int i = 0; i < LANES; i++) {
+                index[i] = (k * LANES + i) / 3;
+            }
+            STORE3[k] = VectorShuffle.fromArray(SPECIES, index, 0);
+            for (int c = 0; c < 3; c++) {
+                boolean[] lanes = new boolean[LANES];
+                for (int i = 0; i < LANES; i++) {
+                    lanes[i] = (k * LANES + i) % 3 == c;
+                }
+                STORE3_COMPONENT[k][c] = VectorMask.fromArray(SPECIES, lanes, 0);
+            }
+        }
+        for (int k = 0; k < 2; k++) {
+            int[] index = new int[LANES];
+            boolean[] lanes = new boolean[LANES];
+            for (int i = 0; i < LANES; i++) {
+                index[i] = (k * LANES + i) / 2;
+                lanes[i] = i % 2 == 1;
+            }
+            STORE2[k] = VectorShuffle.fromArray(SPECIES, index, 0);
+            STORE2_Y[k] = VectorMask.fromArray(SPECIES, lanes, 0);
+        }
+    }
+
+    private final ProjectionKernel tail;
+
+    VectorProjectionKernel(ProjectionKernel tail) {
+        this.tail = tail;
+    }
+
+    @Override
+    public void project(float[] positions, Matrix4f m, int width, int height,
+                        float[] dest, float[] clipDest, int from, int to) {
+        float m00 = m.get(0, 0), m01 = m.get(0, 1), m03 = m.get(0, 3);
+        float m10 = m.get(1, 0), m11 = m.get(1, 1), m13 = m.get(1, 3);
+        float m20 = m.get(2, 0), m21 = m.get(2, 1), m23 = m.get(2, 3);
+        float m30 = m.get(3, 0), m31 = m.get(3, 1), m33 = m.get(3, 3);
+        float halfWidth = 0.5f * width;
+        float halfHeight = 0.5f * height;
+        FloatVector one = FloatVector.broadcast(SPECIES, 1.0f);
+
+        int i = from;
+        for (; i + LANES <= to; i += LANES) {
+            int p = 3 * i;
+            FloatVector a = FloatVector.fromArray(SPECIES, positions, p);
+            FloatVector b = FloatVector.fromArray(SPECIES, positions, p + LANES);
+            FloatVector c = FloatVector.fromArray(SPECIES, positions, p + 2 * LANES);
+            FloatVector vx = load(a, b, c, 0);
+            FloatVector vy = load(a, b, c, 1);
+            FloatVector vz = load(a, b, c, 2);
+
+            FloatVector x = vx.mul(m00).add(vy.mul(m10)).add(vz.mul(m20)).add(m30);
+            FloatVector y = vx.mul(m01).add(vy.mul(m11)).add(vz.mul(m21)).add(m31);
+            FloatVector w = vx.mul(m03).add(vy.mul(m13)).add(vz.mul(m23)).add(m33);
+            for (int k = 0; k < 2; k++) {
+                x.rearrange(STORE2[k]).blend(y.rearrange(STORE2[k]), STORE2_Y[k])
+                        .intoArray(clipDest, i * ProjectedVertices.CLIP_STRIDE + k * LANES);
+            }
+
+            // Как в скалярном варианте: при w ~ 0 деление пропускается
+            VectorMask<Float> divide = w.abs().compare(VectorOperators.GT, 1e-7f);
+            FloatVector sx = x.blend(x.div(w), divide).add(1.0f).mul(halfWidth);
+            FloatVector sy = one.sub(y.blend(y.div(w), divide)).mul(halfHeight);
+            FloatVector depth = w.neg();
+            for (int k = 0; k < 3; k++) {
+                sx.rearrange(STORE3[k])
+                        .blend(sy.rearrange(STORE3[k]), STORE3_COMPONENT[k][1])
+                        .blend(depth.rearrange(STORE3[k]), STORE3_COMPONENT[k][2])
+                        .intoArray(dest, i * ProjectedVertices.STRIDE + k * LANES);
+            }
+        }
+        if (i < to) {
+            tail.project(positions, m, width, height, dest, clipDest, i, to);
+        }
+    }
+
+    private static FloatVector load(FloatVector a, FloatVector b, FloatVector c, int component) {
+        VectorShuffle<Float> shuffle = LOAD[component];
+        return a.rearrange(shuffle)
+                .blend(b.rearrange(shuffle), LOAD_FROM[component][1])
+                .blend(c.rearrange(shuffle), LOAD_FROM[component][2]);
+    }
+}
@@ -3,6 +3,8 @@ module com.cgvsu {
     requires javafx.fxml;
     requires vecmath;
     requires java.desktop;
+    requires jdk.management;
+    requires static jdk.incubator.vector;
 
 
     opens com.cgvsu to javafx.fxml;
@@ -0,0 +1,85 @@
+package com.cgvsu.math;
+
+import com.cgvsu.render_engine.GraphicConveyor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class Matrix4fTest {
+
+    private static final Matrix4f A = new Matrix4f(
+            2, 0, 1, 0,
+            0, 3, 0, 1,
+            1, 0, 1, 0,
+            4, 5, 6, 1);
+    private static final Matrix4f B = new Matrix4f(
+            1, 2, 0, 0,
+            0, 1, 0, 3,
+            0, 0, 1, 0,
+            1, 0, 2, 1);
+
+    @Test
+    public void testMulIntoMatchesMultiplyWhenAliased() {
+        Matrix4f expected = A.multiply(B);
+        Matrix4f left = new Matrix4f(A);
+        left.mulInto(B, left);
+        Matrix4f right = new Matrix4f(B);
+        A.mulInto(right, right);
+        Assertions.assertTrue(expected.equals(left));
+        Assertions.assertTrue(expected.equals(right));
+        Assertions.assertEquals(6 * 1 + 1 * 2, expected.get(3, 2), 1e-6f);
+    }
+
+    @Test
+    public void testInvertIntoSelf() {
+        Matrix4f m = new Matrix4f(A);
+        m.invertInto(m);
+        Assertions.assertTrue(m.multiply(A).isIdentity());
+    }
+
+    @Test
+    public void testTransformPointMatchesConveyor() {
+        float[] points = {1, 2, 3, -4, 0.5f, 7};
+        for (int i = 0; i < points.length; i += 3) {
+            Vector3f expected = GraphicConveyor.multiplyMatrix4ByVector3(
+                    A, new Vector3f(points[i], points[i + 1], points[i + 2]));
+            A.transformPoint(points, i, points, i);
+            Assertions.assertEquals(expected.x, points[i], 1e-5f);
+            Assertions.assertEquals(expected.y, points[i + 1], 1e-5f);
+            Assertions.assertEquals(expected.z, points[i + 2], 1e-5f);
+        }
+    }
+
+    @Test
+    public void testBulkTransformMatchesTransformPoint() {
+        int count = BulkTransform.PARALLEL_THRESHOLD + 1000;
+        float[] points = new float[count * 3];
+        Random random = new Random(3);
+        for (int i = 0; i < points.length; i++) {
+            points[i] = random.nextFloat() * 10 - 5;
+        }
+        float[] sequential = new float[points.length];
+        BulkTransform.transformPoints(A, points, sequential, 0, count);
+        float[] parallel = points.clone();
+        float[] clip = new float[count * 4];
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BulkTransform.transformPoints(A, parallel, parallel, count, pool);
+            BulkTransform.transformToClip(A, points, clip, count, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        float[] expected = new float[3];
+        for (int i = 0; i < count; i += 997) {
+            A.transformPoint(points, 3 * i, expected, 0);
+            for (int k = 0; k < 3; k++) {
+                Assertions.assertEquals(expected[k], sequential[3 * i + k]);
+                Assertions.assertEquals(expected[k], clip[4 * i + k] / clip[4 * i + 3], 1e-4f);
+            }
+        }
+        Assertions.assertArrayEquals(sequential, parallel);
+    }
+}
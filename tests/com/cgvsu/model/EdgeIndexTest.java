@@ -0,0 +1,76 @@
+package com.cgvsu.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+class EdgeIndexTest {
+
+    @Test
+    public void testSharedEdgeStoredOnceWithBothFaces() {
+        // Два треугольника с общим ребром 1-2
+        int[] offsets = {0, 3, 6};
+        int[] indices = {0, 1, 2, 2, 1, 3};
+        EdgeIndex index = EdgeIndex.build(offsets, indices, 2);
+
+        Assertions.assertEquals(5 * 2, index.edges.length);
+        int shared = -1;
+        for (int e = 0; e < index.edges.length / 2; e++) {
+            if (index.edges[2 * e] == 1 && index.edges[2 * e + 1] == 2) {
+                shared = e;
+            }
+        }
+        Assertions.assertTrue(shared >= 0);
+        Assertions.assertEquals(0, index.edgeFaces[2 * shared]);
+        Assertions.assertEquals(1, index.edgeFaces[2 * shared + 1]);
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(5);
+        int polygonCount = 3000;
+        int vertexCount = 400;
+        int[] offsets = new int[polygonCount + 1];
+        int[] indices = new int[polygonCount * 5];
+        int size = 0;
+        for (int f = 0; f < polygonCount; f++) {
+            int n = 3 + random.nextInt(3);
+            for (int k = 0; k < n; k++) {
+                indices[size++] = random.nextInt(vertexCount);
+            }
+            offsets[f + 1] = size;
+        }
+        EdgeIndex index = EdgeIndex.build(offsets, indices, polygonCount);
+
+        // Ребро -> полигоны в порядке появления
+        Map<Long, Set<Integer>> expected = new HashMap<>();
+        for (int f = 0; f < polygonCount; f++) {
+            for (int k = offsets[f]; k < offsets[f + 1]; k++) {
+                int a = indices[k];
+                int b = indices[k + 1 < offsets[f + 1] ? k + 1 : offsets[f]];
+                if (a == b) continue;
+                long key = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+                expected.computeIfAbsent(key, x -> new LinkedHashSet<>()).add(f);
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), index.edges.length / 2);
+        for (int e = 0; e < index.edges.length / 2; e++) {
+            int a = index.edges[2 * e];
+            int b = index.edges[2 * e + 1];
+            Assertions.assertTrue(a < b);
+            Set<Integer> faces = expected.get(((long) a << 32) | b);
+            Assertions.assertNotNull(faces);
+            Integer[] list = faces.toArray(new Integer[0]);
+            Assertions.assertEquals(list[0], index.edgeFaces[2 * e]);
+            int second = list.length == 1 ? EdgeIndex.NO_FACE
+                    : list.length == 2 ? list[1] : EdgeIndex.MANY_FACES;
+            Assertions.assertEquals(second, index.edgeFaces[2 * e + 1]);
+        }
+    }
+}
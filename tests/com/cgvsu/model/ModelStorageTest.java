@@ -0,0 +1,102 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class ModelStorageTest {
+
+    // Случайные добавления и удаления сверяются со списочной моделью: позиции и полигоны
+    // в плоских массивах и CSR должны совпадать с ней после каждого шага
+    @Test
+    public void testFlatArraysMatchListReference() {
+        Random random = new Random(17);
+        Model model = new Model();
+        List<float[]> vertices = new ArrayList<>();
+        List<int[]> polygons = new ArrayList<>();
+        for (int v = 0; v < 60; v++) {
+            float[] p = {random.nextFloat(), random.nextFloat(), random.nextFloat()};
+            vertices.add(p);
+            model.addVertex(p[0], p[1], p[2]);
+        }
+
+        for (int step = 0; step < 400; step++) {
+            int action = random.nextInt(4);
+            if (action <= 1 || polygons.isEmpty()) {
+                int[] polygon = new int[3 + random.nextInt(3)];
+                for (int k = 0; k < polygon.length; k++) {
+                    polygon[k] = random.nextInt(vertices.size());
+                }
+                polygons.add(polygon);
+                model.addPolygon(new Polygon(polygon));
+            } else if (action == 2) {
+                int index = random.nextInt(polygons.size());
+                polygons.remove(index);
+                model.removePolygon(index);
+            } else if (vertices.size() > 10) {
+                int removed = random.nextInt(vertices.size());
+                vertices.remove(removed);
+                List<int[]> kept = new ArrayList<>();
+                for (int[] polygon : polygons) {
+                    boolean uses = false;
+                    for (int v : polygon) {
+                        uses |= v == removed;
+                    }
+                    if (!uses) {
+                        int[] renumbered = polygon.clone();
+                        for (int k = 0; k < renumbered.length; k++) {
+                            if (renumbered[k] > removed) renumbered[k]--;
+                        }
+                        kept.add(renumbered);
+                    }
+                }
+                polygons = kept;
+                model.removeVertex(removed);
+            }
+            assertSame(vertices, polygons, model);
+        }
+    }
+
+    @Test
+    public void testSnapshotIsIndependent() {
+        Model model = new Model();
+        model.addVertex(0, 0, 0);
+        model.addVertex(1, 0, 0);
+        model.addVertex(0, 1, 0);
+        model.addPolygon(new Polygon(new int[]{0, 1, 2}));
+        Model snapshot = model.snapshot();
+
+        model.addVertex(5, 5, 5);
+        model.removePolygon(0);
+        Assertions.assertEquals(3, snapshot.getVertexCount());
+        Assertions.assertEquals(1, snapshot.getPolygonCount());
+        Assertions.assertEquals(List.of(0, 1, 2), snapshot.getPolygons().get(0).getVertexIndices());
+    }
+
+    private static void assertSame(List<float[]> vertices, List<int[]> polygons, Model model) {
+        Assertions.assertEquals(vertices.size(), model.getVertexCount());
+        float[] positions = model.getPositions();
+        for (int v = 0; v < vertices.size(); v++) {
+            Vector3f vertex = model.getVertices().get(v);
+            Assertions.assertEquals(vertices.get(v)[0], positions[3 * v]);
+            Assertions.assertEquals(vertices.get(v)[2], positions[3 * v + 2]);
+            Assertions.assertEquals(vertices.get(v)[1], vertex.y);
+        }
+        Assertions.assertEquals(polygons.size(), model.getPolygonCount());
+        int[] offsets = model.getPolygonOffsets();
+        int[] indices = model.getPolygonVertexIndices();
+        Assertions.assertEquals(0, offsets[0]);
+        for (int p = 0; p < polygons.size(); p++) {
+            int[] expected = polygons.get(p);
+            Assertions.assertEquals(expected.length, offsets[p + 1] - offsets[p]);
+            Assertions.assertEquals(expected.length, model.getPolygonVertexCount(p));
+            for (int k = 0; k < expected.length; k++) {
+                Assertions.assertEquals(expected[k], indices[offsets[p] + k]);
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+class ModelTest {
+
+    // Сетка 3x3 вершины, 4 квада
+    private static Model grid() {
+        Model model = new Model();
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 3; x++) {
+                model.addVertex(x, y, 0);
+            }
+        }
+        for (int y = 0; y < 2; y++) {
+            for (int x = 0; x < 2; x++) {
+                int v = y * 3 + x;
+                model.addPolygon(new Polygon(new int[]{v, v + 1, v + 4, v + 3}));
+            }
+        }
+        return model;
+    }
+
+    @Test
+    public void testRemoveVerticesMatchesSequentialRemoval() {
+        Model batch = grid();
+        Model sequential = grid();
+
+        batch.removeVertices(new int[]{8, 2});
+        sequential.removeVertex(8);
+        sequential.removeVertex(2);
+
+        Assertions.assertEquals(sequential.getVertexCount(), batch.getVertexCount());
+        Assertions.assertEquals(7, batch.getVertexCount());
+        Assertions.assertEquals(2, batch.getPolygonCount());
+        for (int p = 0; p < batch.getPolygonCount(); p++) {
+            Assertions.assertEquals(sequential.getPolygons().get(p).getVertexIndices(),
+                    batch.getPolygons().get(p).getVertexIndices());
+        }
+        Assertions.assertEquals(List.of(0, 1, 3, 2), batch.getPolygons().get(0).getVertexIndices());
+        Assertions.assertEquals(List.of(2, 3, 6, 5), batch.getPolygons().get(1).getVertexIndices());
+        Assertions.assertEquals(1.0f, batch.getVertices().get(2).y);
+    }
+
+    @Test
+    public void testRemovePolygons() {
+        Model model = grid();
+        BitSet removed = new BitSet();
+        removed.set(0);
+        removed.set(2);
+
+        model.removePolygons(removed);
+
+        Assertions.assertEquals(9, model.getVertexCount());
+        Assertions.assertEquals(2, model.getPolygonCount());
+        Assertions.assertEquals(List.of(1, 2, 5, 4), model.getPolygons().get(0).getVertexIndices());
+        Assertions.assertEquals(List.of(4, 5, 8, 7), model.getPolygons().get(1).getVertexIndices());
+        Assertions.assertEquals(7, model.getEdgeCount());
+    }
+
+    @Test
+    public void testRemoveVerticesRejectsInvalidIndex() {
+        Model model = grid();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> model.removeVertices(new int[]{0, 9}));
+        Assertions.assertEquals(9, model.getVertexCount());
+    }
+
+    @Test
+    public void testSnapshotIsIsolatedFromEdits() {
+        Model original = grid();
+        Model snapshot = original.snapshot();
+        Assertions.assertSame(original.getPositions(), snapshot.getPositions());
+
+        original.removeVertex(0);
+        original.addVertex(5, 5, 5);
+        snapshot.addVertex(7, 7, 7);
+        snapshot.removePolygon(3);
+
+        Assertions.assertEquals(9, original.getVertexCount());
+        Assertions.assertEquals(3, original.getPolygonCount());
+        Assertions.assertEquals(5.0f, original.getVertices().get(8).x);
+
+        Assertions.assertEquals(10, snapshot.getVertexCount());
+        Assertions.assertEquals(3, snapshot.getPolygonCount());
+        Assertions.assertEquals(0.0f, snapshot.getVertices().get(0).x);
+        Assertions.assertEquals(7.0f, snapshot.getVertices().get(9).x);
+        Assertions.assertEquals(List.of(0, 1, 4, 3), snapshot.getPolygons().get(0).getVertexIndices());
+    }
+
+    @Test
+    public void testAdjacencyQueries() {
+        Model model = grid();
+
+        Assertions.assertArrayEquals(new int[]{0, 1, 2, 3}, model.getVertexPolygons(4));
+        Assertions.assertArrayEquals(new int[]{1, 2}, model.getPolygonNeighbors(0));
+        Assertions.assertArrayEquals(new int[]{1, 3, 5, 7}, model.getVertexNeighbors(4));
+        Assertions.assertTrue(model.isBoundaryEdge(0, 1));
+        Assertions.assertFalse(model.isBoundaryEdge(1, 4));
+    }
+
+    @Test
+    public void testAdjacencyFollowsRemovals() {
+        Model model = grid();
+        model.getVertexPolygons(0);
+
+        model.removeVertex(0);
+        Assertions.assertArrayEquals(new int[]{0, 1, 2}, model.getVertexPolygons(3));
+        Assertions.assertArrayEquals(new int[]{2}, model.getPolygonNeighbors(0));
+
+        model.removePolygon(0);
+        Assertions.assertArrayEquals(new int[]{0, 1}, model.getVertexPolygons(3));
+        Assertions.assertArrayEquals(new int[0], model.getVertexPolygons(1));
+        Assertions.assertTrue(model.isBoundaryEdge(2, 3));
+    }
+
+    @Test
+    public void testWeldMergesDuplicateVertices() {
+        // Два квада с собственными копиями общих вершин, одна копия смещена в пределах допуска
+        Model model = new Model();
+        float[][] points = {{0, 0}, {1, 0}, {1, 1}, {0, 1}, {1, 0}, {2, 0}, {2, 1}, {1.0000001f, 1}};
+        for (float[] point : points) {
+            model.addVertex(point[0], point[1], 0);
+        }
+        model.addPolygon(new Polygon(new int[]{0, 1, 2, 3}));
+        model.addPolygon(new Polygon(new int[]{4, 5, 6, 7}));
+
+        long saved = model.weld(1e-5f, false);
+
+        Assertions.assertEquals(6, model.getVertexCount());
+        Assertions.assertEquals(List.of(1, 4, 5, 2), model.getPolygons().get(1).getVertexIndices());
+        Assertions.assertEquals(7, model.getEdgeCount());
+        // Две слитые вершины по три float; запас ёмкости массива не считается
+        Assertions.assertEquals(2 * 3 * Float.BYTES, saved);
+        Assertions.assertEquals(0, model.weld(1e-5f, false));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> model.weld(-1, false));
+
+        Model unique = new Model();
+        for (int i = 0; i < 5; i++) {
+            unique.addVertex(i, 0, 0);
+        }
+        Assertions.assertTrue(unique.getPositions().length > 15);
+        Assertions.assertEquals(0, unique.weld(1e-5f, true));
+    }
+
+    @Test
+    public void testCompactDropsOrphans() {
+        Model model = grid();
+        model.addNormal(new Vector3f(0, 0, 1));
+        model.removePolygons(new int[]{0, 1});
+
+        Assertions.assertEquals(4, model.compact());
+        Assertions.assertEquals(6, model.getVertexCount());
+        Assertions.assertEquals(0, model.getNormalCount());
+        Assertions.assertEquals(List.of(0, 1, 4, 3), model.getPolygons().get(0).getVertexIndices());
+        Assertions.assertEquals(1.0f, model.getVertices().get(0).y);
+        Assertions.assertEquals(0, model.compact());
+    }
+
+    @Test
+    public void testCompactRejectsInvalidIndex() {
+        Model model = grid();
+        model.addVertex(9, 9, 9);
+        model.addPolygon(new Polygon(new int[]{0, 1, 12}));
+
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class, model::compact);
+        Assertions.assertEquals("Polygon #5 has invalid vertex index: 12", e.getMessage());
+        Assertions.assertEquals(10, model.getVertexCount());
+    }
+
+    @Test
+    public void testAutoCompactAfterRemovals() {
+        Model model = grid();
+        model.setAutoCompactThreshold(0.5f);
+
+        model.removePolygon(0);
+        Assertions.assertEquals(9, model.getVertexCount());
+        model.removePolygon(0);
+        Assertions.assertEquals(6, model.getVertexCount());
+    }
+
+    @Test
+    public void testRaycastFindsPolygonUnderRay() {
+        Model model = grid();
+        Vector3f down = new Vector3f(0, 0, -1);
+
+        RayHit hit = model.raycast(new Vector3f(1.2f, 0.3f, 5), down);
+        Assertions.assertNotNull(hit);
+        Assertions.assertEquals(1, hit.getPolygonIndex());
+        Assertions.assertEquals(1, hit.getVertexIndex());
+        Assertions.assertEquals(5.0f, hit.getDistance(), 1e-5f);
+
+        Assertions.assertNull(model.raycast(new Vector3f(3, 3, 5), down));
+        Assertions.assertNull(model.raycast(new Vector3f(1.2f, 0.3f, -5), down));
+
+        model.removePolygon(1);
+        Assertions.assertNull(model.raycast(new Vector3f(1.2f, 0.3f, 5), down));
+    }
+
+    // Луч вдоль оси, начало на грани параллелепипеда узла: 0 * Infinity не должно отбрасывать узел
+    @Test
+    public void testAxisAlignedRayOnBoxPlaneHits() {
+        Model model = grid();
+        Vector3f down = new Vector3f(0, 0, -1);
+        RayHit hit = model.raycast(new Vector3f(0, 0.5f, 5), down);
+        Assertions.assertNotNull(hit);
+        Assertions.assertEquals(0, hit.getPolygonIndex());
+        Assertions.assertEquals(5.0f, hit.getDistance(), 1e-5f);
+
+        hit = model.raycast(new Vector3f(2, 2, 5), down);
+        Assertions.assertNotNull(hit);
+        Assertions.assertEquals(3, hit.getPolygonIndex());
+        // Параллельно плитам, но вне их — промах
+        Assertions.assertNull(model.raycast(new Vector3f(2.001f, 1, 5), down));
+    }
+
+    @Test
+    public void testApplyTransformMovesPositionsAndNormals() {
+        Model model = grid();
+        model.addNormal(new Vector3f(0, 0, 1));
+        // Масштаб по z вдвое и перенос на (1, 2, 3) в нижней строке: p * M
+        model.applyTransform(new Matrix4f(
+                1, 0, 0, 0,
+                0, 1, 0, 0,
+                0, 0, 2, 0,
+                1, 2, 3, 1), null);
+
+        Vector3f first = model.getVertices().get(0);
+        Assertions.assertEquals(1, first.x, 1e-6f);
+        Assertions.assertEquals(2, first.y, 1e-6f);
+        Assertions.assertEquals(3, first.z, 1e-6f);
+        Vector3f normal = model.getNormals().get(0);
+        Assertions.assertEquals(1, normal.z, 1e-6f);
+        Assertions.assertArrayEquals(new float[]{1, 2, 3, 3, 4, 3}, model.getBounds(), 1e-6f);
+    }
+}
@@ -0,0 +1,58 @@
+package com.cgvsu.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class PolygonTest {
+
+    @Test
+    public void testGrowsPastInitialCapacity() {
+        Polygon polygon = new Polygon();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 37; i++) {
+            polygon.addVertex(i * 3);
+            polygon.addNormal(i);
+            expected.add(i * 3);
+        }
+        Assertions.assertEquals(37, polygon.getVertexCount());
+        Assertions.assertEquals(expected, polygon.getVertexIndices());
+        Assertions.assertEquals(36, polygon.getNormalIndex(36));
+        Assertions.assertFalse(polygon.hasTextureCoordinates());
+        Assertions.assertTrue(polygon.hasNormals());
+
+        int[] dest = new int[40];
+        polygon.copyVertexIndices(dest, 3);
+        Assertions.assertEquals(0, dest[3]);
+        Assertions.assertEquals(108, dest[39]);
+    }
+
+    @Test
+    public void testViewsAreReadOnlyAndBounded() {
+        Polygon polygon = new Polygon(new int[]{4, 5, 6});
+        List<Integer> view = polygon.getVertexIndices();
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> view.add(7));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> view.set(0, 1));
+        // Запас ёмкости за vertexCount наружу не виден
+        Polygon grown = new Polygon();
+        grown.addVertex(1);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> grown.getVertexIndices().get(1));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> grown.getVertexIndex(1));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> grown.getTextureVertexIndex(0));
+    }
+
+    @Test
+    public void testConstructorAndCopyDoNotShareArrays() {
+        int[] source = {1, 2, 3};
+        Polygon polygon = new Polygon(source);
+        source[0] = 99;
+        Assertions.assertEquals(1, polygon.getVertexIndex(0));
+
+        Polygon copy = polygon.copy();
+        polygon.decrementVertexIndicesGreaterThan(1);
+        Assertions.assertEquals(List.of(1, 1, 2), polygon.getVertexIndices());
+        Assertions.assertEquals(List.of(1, 2, 3), copy.getVertexIndices());
+    }
+}
@@ -0,0 +1,145 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objwriter.ObjWriter;
+import com.cgvsu.render_engine.GraphicConveyor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SceneObjectTest {
+
+    @Test
+    public void testScaleRotateTranslateOrder() {
+        SceneObject so = new SceneObject(new Model(), "test");
+        so.scale(2, 1, 1);
+        so.rotate(0, 0, 90);
+        so.translate(10, 0, 0);
+        // (1, 0, 0) -> масштаб (2, 0, 0) -> поворот вокруг Z (0, 2, 0) -> перенос (10, 2, 0)
+        Vector3f p = GraphicConveyor.multiplyMatrix4ByVector3(so.getTransform(), new Vector3f(1, 0, 0));
+        Assertions.assertEquals(10, p.x, 1e-5f);
+        Assertions.assertEquals(2, p.y, 1e-5f);
+        Assertions.assertEquals(0, p.z, 1e-5f);
+    }
+
+    @Test
+    public void testScaleActsAlongModelAxes() {
+        SceneObject so = new SceneObject(new Model(), "test");
+        so.rotate(0, 0, 90);
+        so.translate(10, 0, 0);
+        so.scale(2, 1, 1);
+        // Масштаб после поворота и переноса всё равно идёт вдоль оси X модели (мировой Y)
+        // и не сдвигает объект: (1, 0, 0) -> (2, 0, 0) -> (0, 2, 0) -> (10, 2, 0)
+        Vector3f p = GraphicConveyor.multiplyMatrix4ByVector3(so.getTransform(), new Vector3f(1, 0, 0));
+        Assertions.assertEquals(10, p.x, 1e-5f);
+        Assertions.assertEquals(2, p.y, 1e-5f);
+        Assertions.assertEquals(0, p.z, 1e-5f);
+        Vector3f origin = GraphicConveyor.multiplyMatrix4ByVector3(so.getTransform(), new Vector3f(0, 0, 0));
+        Assertions.assertEquals(10, origin.x, 1e-5f);
+        Assertions.assertEquals(0, origin.y, 1e-5f);
+    }
+
+    @Test
+    public void testSetTransformDecomposes() {
+        SceneObject source = new SceneObject(new Model(), "source");
+        source.scale(-2, 0.5f, 3);
+        source.rotate(30, -45, 160);
+        source.translate(1, -2, 5);
+
+        SceneObject so = new SceneObject(new Model(), "test");
+        int version = so.getTransformVersion();
+        so.setTransform(source.getTransform());
+        Assertions.assertNotEquals(version, so.getTransformVersion());
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                Assertions.assertEquals(source.getTransform().get(row, col), so.getTransform().get(row, col), 1e-5f);
+            }
+        }
+        Assertions.assertEquals(1, so.getRotation().length(), 1e-6f);
+
+        Matrix4f shear = Matrix4f.identity();
+        shear.set(1, 0, 0.5f);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> so.setTransform(shear));
+        Matrix4f projective = Matrix4f.identity();
+        projective.set(2, 3, 1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> so.applyTransformation(projective));
+    }
+
+    @Test
+    public void testApplyTransformationAppendsAfterCurrent() {
+        SceneObject so = new SceneObject(new Model(), "test");
+        so.translate(1, 0, 0);
+        SceneObject rotator = new SceneObject(new Model(), "r");
+        rotator.rotate(0, 0, 90);
+        so.applyTransformation(rotator.getTransform());
+        // Перенос, затем поворот вокруг мирового начала: (0, 0, 0) -> (1, 0, 0) -> (0, 1, 0)
+        Vector3f p = GraphicConveyor.multiplyMatrix4ByVector3(so.getTransform(), new Vector3f(0, 0, 0));
+        Assertions.assertEquals(0, p.x, 1e-5f);
+        Assertions.assertEquals(1, p.y, 1e-5f);
+    }
+
+    @Test
+    public void testInverseTransform() {
+        SceneObject so = new SceneObject(new Model(), "test");
+        so.scale(2, 0.5f, 3);
+        so.rotate(30, -45, 60);
+        so.translate(1, -2, 5);
+        Matrix4f product = so.getTransform().multiply(so.getInverseTransform());
+        Assertions.assertTrue(product.isIdentity());
+
+        // Направление луча: линейная часть обратной матрицы даёт то же, что разность двух точек
+        Matrix4f inverse = so.getInverseTransform();
+        Vector3f origin = new Vector3f(3, -1, 2);
+        Vector3f direction = new Vector3f(0.5f, 2, -4);
+        Vector3f expected = GraphicConveyor.multiplyMatrix4ByVector3(inverse, origin.addNew(direction))
+                .subtract(GraphicConveyor.multiplyMatrix4ByVector3(inverse, origin));
+        Vector3f actual = GraphicConveyor.multiplyMatrix4ByDirection(inverse, direction);
+        Assertions.assertEquals(expected.x, actual.x, 1e-4f);
+        Assertions.assertEquals(expected.y, actual.y, 1e-4f);
+        Assertions.assertEquals(expected.z, actual.z, 1e-4f);
+
+        so.scale(0, 1, 1);
+        Assertions.assertThrows(ArithmeticException.class, so::getInverseTransform);
+    }
+
+    @Test
+    public void testRepeatedRotationKeepsScale() {
+        SceneObject so = new SceneObject(new Model(), "test");
+        for (int i = 0; i < 3600; i++) {
+            so.rotate(1, 0.5f, 0.25f);
+        }
+        Matrix4f m = so.getTransform();
+        for (int row = 0; row < 3; row++) {
+            float length = (float) Math.sqrt(m.get(row, 0) * m.get(row, 0)
+                    + m.get(row, 1) * m.get(row, 1) + m.get(row, 2) * m.get(row, 2));
+            Assertions.assertEquals(1, length, 1e-5f);
+        }
+    }
+
+    @Test
+    public void testTransformedModelRoundTripsThroughObj() {
+        Model model = new Model();
+        model.addVertex(0, 0, 0);
+        model.addVertex(1, 0, 0);
+        model.addVertex(0, 2, -1);
+        model.addPolygon(new Polygon(new int[]{0, 1, 2}));
+        SceneObject so = new SceneObject(model, "test");
+        so.scale(2, 3, 0.5f);
+        so.rotate(15, 40, -70);
+        so.translate(4, -1, 2.5f);
+
+        Model read = ObjReader.read(ObjWriter.modelToString(so.toTransformedModel(null)));
+
+        Assertions.assertEquals(3, read.getVertexCount());
+        for (int i = 0; i < 3; i++) {
+            Vector3f expected = GraphicConveyor.multiplyMatrix4ByVector3(so.getTransform(), model.getVertices().get(i));
+            Vector3f actual = read.getVertices().get(i);
+            Assertions.assertEquals(expected.x, actual.x, 1e-5f);
+            Assertions.assertEquals(expected.y, actual.y, 1e-5f);
+            Assertions.assertEquals(expected.z, actual.z, 1e-5f);
+        }
+        // Модель объекта остаётся в своих координатах
+        Assertions.assertEquals(2.0f, model.getVertices().get(2).y);
+    }
+}
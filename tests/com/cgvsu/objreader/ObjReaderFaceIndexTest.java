@@ -0,0 +1,46 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.Model;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ObjReaderFaceIndexTest {
+
+    private static final String VERTICES = "v 0 0 0\nv 1 0 0\nv 0 1 0\n";
+
+    @Test
+    public void testValidFacesLoadAndWeld() {
+        Model model = ObjReader.read(VERTICES + "vt 0 0\nvn 0 0 1\nf 1/1/1 2/1/1 3/1/1\n");
+        Assertions.assertEquals(1, model.getPolygonCount());
+        model.weld(1e-5f, true);
+        Assertions.assertEquals(3, model.getVertexCount());
+    }
+
+    @Test
+    public void testFaceMayReferenceLaterVertex() {
+        Model model = ObjReader.read("v 0 0 0\nv 1 0 0\nf 1 2 3\nv 0 1 0\n");
+        Assertions.assertEquals(1, model.getPolygonCount());
+    }
+
+    @Test
+    public void testOutOfRangeVertexIndexReportsLine() {
+        ObjReaderException e = Assertions.assertThrows(ObjReaderException.class,
+                () -> ObjReader.read(VERTICES + "f 1 2 3\nf 1 2 4\n"));
+        Assertions.assertTrue(e.getMessage().contains("line: 5"), e.getMessage());
+    }
+
+    @Test
+    public void testOutOfRangeAttributeIndices() {
+        Assertions.assertThrows(ObjReaderException.class,
+                () -> ObjReader.read(VERTICES + "vt 0 0\nf 1/1 2/2 3/1\n"));
+        Assertions.assertThrows(ObjReaderException.class,
+                () -> ObjReader.read(VERTICES + "f 1//1 2//1 3//1\n"));
+    }
+
+    @Test
+    public void testNegativeIndexReportsLine() {
+        ObjReaderException e = Assertions.assertThrows(ObjReaderException.class,
+                () -> ObjReader.read(VERTICES + "f -1 -2 -3\n"));
+        Assertions.assertTrue(e.getMessage().contains("line: 4"), e.getMessage());
+    }
+}
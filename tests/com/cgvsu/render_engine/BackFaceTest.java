@@ -0,0 +1,43 @@
+package com.cgvsu.render_engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BackFaceTest {
+
+    // Экранные sx, sy, d трёх вершин; ось y направлена вниз
+    private static final float[] SCREEN = {
+            10, 10, 5,
+            50, 10, 5,
+            10, 50, 5,
+            30, 30, -1};
+
+    @Test
+    public void testWindingFlipsFacing() {
+        int[] clockwiseOnScreen = {0, 1, 2};
+        int[] reversed = {0, 2, 1};
+        Assertions.assertTrue(RenderEngine.isFrontFacing(clockwiseOnScreen, 0, 3, SCREEN));
+        Assertions.assertFalse(RenderEngine.isFrontFacing(reversed, 0, 3, SCREEN));
+        // Сдвиг начала обхода ориентацию не меняет
+        Assertions.assertTrue(RenderEngine.isFrontFacing(new int[]{1, 2, 0}, 0, 3, SCREEN));
+    }
+
+    @Test
+    public void testRangeInsideSharedIndexArray() {
+        int[] indices = {0, 2, 1, 0, 1, 2};
+        Assertions.assertFalse(RenderEngine.isFrontFacing(indices, 0, 3, SCREEN));
+        Assertions.assertTrue(RenderEngine.isFrontFacing(indices, 3, 6, SCREEN));
+    }
+
+    @Test
+    public void testVertexBehindCameraCountsAsFront() {
+        Assertions.assertTrue(RenderEngine.isFrontFacing(new int[]{0, 2, 3}, 0, 3, SCREEN));
+        Assertions.assertTrue(RenderEngine.isFrontFacing(new int[]{3, 2, 0}, 0, 3, SCREEN));
+    }
+
+    @Test
+    public void testDegeneratePolygonIsBack() {
+        float[] screen = {0, 0, 5, 10, 10, 5, 20, 20, 5};
+        Assertions.assertFalse(RenderEngine.isFrontFacing(new int[]{0, 1, 2}, 0, 3, screen));
+    }
+}
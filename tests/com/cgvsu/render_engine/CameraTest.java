@@ -0,0 +1,48 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.SceneObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CameraTest {
+
+    @Test
+    public void testMatricesRebuiltOnlyAfterChange() {
+        Camera camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0f, 1.0f, 0.01f, 100);
+        Matrix4f view = camera.getViewMatrix();
+        Matrix4f projection = camera.getProjectionMatrix();
+        Assertions.assertSame(view, camera.getViewMatrix());
+        Assertions.assertSame(projection, camera.getProjectionMatrix());
+
+        camera.movePosition(new Vector3f(1, 0, 0));
+        Assertions.assertNotSame(view, camera.getViewMatrix());
+        Assertions.assertSame(projection, camera.getProjectionMatrix());
+        Assertions.assertTrue(camera.getViewMatrix().equals(
+                GraphicConveyor.lookAt(new Vector3f(1, 0, 100), new Vector3f(0, 0, 0))));
+
+        camera.setAspectRatio(2.0f);
+        Assertions.assertNotSame(projection, camera.getProjectionMatrix());
+        Assertions.assertTrue(camera.getViewProjectionMatrix().equals(
+                camera.getViewMatrix().multiply(camera.getProjectionMatrix())));
+    }
+
+    @Test
+    public void testSceneObjectMvpFollowsCameraAndTransform() {
+        Camera camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0f, 1.0f, 0.01f, 100);
+        SceneObject so = new SceneObject(new Model(), "test");
+        so.translate(1, 2, 3);
+        Matrix4f expected = so.getTransform().multiply(camera.getViewProjectionMatrix());
+        Assertions.assertTrue(so.getMVP(camera).equals(expected));
+
+        so.scale(2, 2, 2);
+        expected = so.getTransform().multiply(camera.getViewProjectionMatrix());
+        Assertions.assertTrue(so.getMVP(camera).equals(expected));
+
+        camera.setPosition(new Vector3f(5, 0, 50));
+        expected = so.getTransform().multiply(camera.getViewProjectionMatrix());
+        Assertions.assertTrue(so.getMVP(camera).equals(expected));
+    }
+}
@@ -0,0 +1,84 @@
+package com.cgvsu.render_engine;
+
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FrameBufferTest {
+
+    @Test
+    public void testResizeReallocatesOnlyOnChange() {
+        FrameBuffer fb = new FrameBuffer();
+        fb.resize(40, 30);
+        Assertions.assertEquals(40, fb.getWidth());
+        Assertions.assertEquals(30, fb.getHeight());
+        Assertions.assertEquals(40 * 30, fb.getColorBuffer().length);
+        Assertions.assertEquals(40 * 30, fb.getDepthBuffer().length);
+
+        int[] color = fb.getColorBuffer();
+        fb.resize(40, 30);
+        Assertions.assertSame(color, fb.getColorBuffer());
+
+        fb.setIdBufferEnabled(true);
+        fb.resize(20, 10);
+        Assertions.assertEquals(200, fb.getColorBuffer().length);
+        Assertions.assertEquals(200, fb.getIdBuffer().length);
+
+        // Канвас нулевого размера не должен давать пустой буфер
+        fb.resize(0, -5);
+        Assertions.assertEquals(1, fb.getWidth());
+        Assertions.assertEquals(1, fb.getHeight());
+    }
+
+    @Test
+    public void testClearAndPixelAccess() {
+        FrameBuffer fb = new FrameBuffer();
+        fb.resize(8, 4);
+        fb.clear(0xFF102030);
+        for (int pixel : fb.getColorBuffer()) {
+            Assertions.assertEquals(0xFF102030, pixel);
+        }
+
+        fb.setPixel(3, 2, 0xFFFFFFFF);
+        fb.setPixel(-1, 0, 0xFF000000);
+        fb.setPixel(8, 0, 0xFF000000);
+        Assertions.assertEquals(0xFFFFFFFF, fb.getPixel(3, 2));
+        Assertions.assertEquals(0xFFFFFFFF, fb.getColorBuffer()[2 * 8 + 3]);
+        Assertions.assertEquals(0xFF102030, fb.getPixel(0, 0));
+        Assertions.assertEquals(0xFF102030, fb.getPixel(7, 0));
+
+        fb.getDepthBuffer()[5] = 0.7f;
+        fb.clearDepth();
+        for (float depth : fb.getDepthBuffer()) {
+            Assertions.assertEquals(0.0f, depth);
+        }
+    }
+
+    @Test
+    public void testArgbPacking() {
+        // Буфер выводится как IntArgbPre: у непрозрачных цветов он совпадает с обычным ARGB
+        Assertions.assertEquals(0xFFFF8000, FrameBuffer.toArgb(Color.rgb(255, 128, 0)));
+        Assertions.assertEquals(0xFF000000, FrameBuffer.toArgb(Color.BLACK));
+        Assertions.assertEquals(0, FrameBuffer.toArgb(Color.TRANSPARENT));
+    }
+
+    @Test
+    public void testLineIsClippedToBuffer() {
+        FrameBuffer fb = new FrameBuffer();
+        fb.resize(10, 5);
+        fb.clear(0);
+        Rasterizer.drawLine(fb, -100, 2, 100, 2, 7, 1);
+        for (int x = 0; x < 10; x++) {
+            Assertions.assertEquals(7, fb.getPixel(x, 2));
+            Assertions.assertEquals(0, fb.getPixel(x, 1));
+            Assertions.assertEquals(0, fb.getPixel(x, 3));
+        }
+
+        // Отрезок целиком вне буфера ничего не рисует
+        fb.clear(0);
+        Rasterizer.drawLine(fb, 20, -3, 40, -10, 7, 3);
+        for (int pixel : fb.getColorBuffer()) {
+            Assertions.assertEquals(0, pixel);
+        }
+    }
+}
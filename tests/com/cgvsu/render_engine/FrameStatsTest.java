@@ -0,0 +1,64 @@
+package com.cgvsu.render_engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FrameStatsTest {
+
+    @Test
+    public void testRingBufferKeepsNewestFrames() {
+        FrameStats stats = new FrameStats();
+        int frames = FrameStats.CAPACITY + 15;
+        for (int f = 0; f < frames; f++) {
+            stats.beginFrame();
+            stats.addVertices(f);
+            stats.addStageTime(FrameStats.Stage.DRAW, 5);
+            stats.addStageTime(FrameStats.Stage.DRAW, f);
+            stats.endFrame();
+        }
+        Assertions.assertEquals(FrameStats.CAPACITY, stats.size());
+        // Возраст 0 — последний кадр, самый старый — CAPACITY - 1
+        Assertions.assertEquals(frames - 1, stats.getVertexCount(0));
+        Assertions.assertEquals(frames - FrameStats.CAPACITY, stats.getVertexCount(FrameStats.CAPACITY - 1));
+        Assertions.assertEquals(5 + frames - 1, stats.getStageNanos(0, FrameStats.Stage.DRAW));
+        Assertions.assertEquals(0, stats.getStageNanos(0, FrameStats.Stage.PRESENT));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> stats.getVertexCount(FrameStats.CAPACITY));
+    }
+
+    @Test
+    public void testCountersResetBetweenFrames() {
+        FrameStats stats = new FrameStats();
+        stats.beginFrame();
+        stats.addPolygons(10);
+        stats.addEdges(4);
+        stats.endFrame();
+        stats.beginFrame();
+        stats.addPolygons(3);
+        stats.endFrame();
+        Assertions.assertEquals(3, stats.getPolygonCount(0));
+        Assertions.assertEquals(0, stats.getEdgeCount(0));
+        Assertions.assertEquals(10, stats.getPolygonCount(1));
+    }
+
+    @Test
+    public void testPercentileBounds() throws InterruptedException {
+        FrameStats stats = new FrameStats();
+        Assertions.assertEquals(0, stats.percentileFrameNanos(50));
+        for (int f = 0; f < 5; f++) {
+            stats.beginFrame();
+            Thread.sleep(f == 4 ? 20 : 1);
+            stats.endFrame();
+        }
+        long max = 0;
+        long min = Long.MAX_VALUE;
+        for (int age = 0; age < stats.size(); age++) {
+            max = Math.max(max, stats.getFrameNanos(age));
+            min = Math.min(min, stats.getFrameNanos(age));
+        }
+        Assertions.assertEquals(max, stats.percentileFrameNanos(100));
+        Assertions.assertEquals(min, stats.percentileFrameNanos(0));
+        Assertions.assertTrue(stats.percentileFrameNanos(50) <= stats.percentileFrameNanos(99));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> stats.percentileFrameNanos(101));
+        Assertions.assertEquals(5, stats.getFramesPerSecond());
+    }
+}
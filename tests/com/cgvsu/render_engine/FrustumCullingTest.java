@@ -0,0 +1,66 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class FrustumCullingTest {
+    private static final float NEAR = 0.1f;
+    private static final float FAR = 500;
+
+    // Камера в (0, 0, 100) смотрит на начало координат
+    private static Matrix4f viewProjection() {
+        Camera camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 60, 1.5f, NEAR, FAR);
+        return camera.getViewProjectionMatrix();
+    }
+
+    @Test
+    public void testBoxesAroundFrustum() {
+        Matrix4f mvp = viewProjection();
+        // У начала координат — виден
+        Assertions.assertFalse(GraphicConveyor.isBoxOutsideFrustum(mvp, new float[]{-1, -1, -1, 1, 1, 1}, NEAR, FAR));
+        // Целиком за камерой
+        Assertions.assertTrue(GraphicConveyor.isBoxOutsideFrustum(mvp, new float[]{-5, -5, 150, 5, 5, 200}, NEAR, FAR));
+        // Далеко сбоку
+        Assertions.assertTrue(GraphicConveyor.isBoxOutsideFrustum(mvp, new float[]{500, -1, -1, 510, 1, 1}, NEAR, FAR));
+        // Дальше дальней плоскости
+        Assertions.assertTrue(GraphicConveyor.isBoxOutsideFrustum(mvp, new float[]{-1, -1, -700, 1, 1, -650}, NEAR, FAR));
+        // Пересекает боковую плоскость: часть снаружи, часть на экране
+        Assertions.assertFalse(GraphicConveyor.isBoxOutsideFrustum(mvp, new float[]{0, -1, -1, 500, 1, 1}, NEAR, FAR));
+        // Камера внутри параллелепипеда: углы по разные стороны ближней плоскости
+        Assertions.assertFalse(GraphicConveyor.isBoxOutsideFrustum(mvp, new float[]{-200, -200, -200, 200, 200, 200}, NEAR, FAR));
+    }
+
+    // Отсечение консервативно: параллелепипед с хотя бы одной видимой точкой не отбрасывается
+    @Test
+    public void testNeverCullsBoxWithVisiblePoint() {
+        Matrix4f mvp = viewProjection();
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            float[] bounds = new float[6];
+            for (int k = 0; k < 3; k++) {
+                float a = random.nextFloat() * 600 - 300;
+                float b = a + random.nextFloat() * 80;
+                bounds[k] = a;
+                bounds[k + 3] = b;
+            }
+            boolean visible = false;
+            for (int s = 0; s < 200 && !visible; s++) {
+                float px = bounds[0] + (bounds[3] - bounds[0]) * random.nextFloat();
+                float py = bounds[1] + (bounds[4] - bounds[1]) * random.nextFloat();
+                float pz = bounds[2] + (bounds[5] - bounds[2]) * random.nextFloat();
+                float x = px * mvp.get(0, 0) + py * mvp.get(1, 0) + pz * mvp.get(2, 0) + mvp.get(3, 0);
+                float y = px * mvp.get(0, 1) + py * mvp.get(1, 1) + pz * mvp.get(2, 1) + mvp.get(3, 1);
+                float d = GraphicConveyor.viewDepth(
+                        px * mvp.get(0, 3) + py * mvp.get(1, 3) + pz * mvp.get(2, 3) + mvp.get(3, 3));
+                visible = Math.abs(x) <= d && Math.abs(y) <= d && d >= NEAR && d <= FAR;
+            }
+            if (visible) {
+                Assertions.assertFalse(GraphicConveyor.isBoxOutsideFrustum(mvp, bounds, NEAR, FAR));
+            }
+        }
+    }
+}
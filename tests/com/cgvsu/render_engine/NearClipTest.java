@@ -0,0 +1,116 @@
+package com.cgvsu.render_engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+class NearClipTest {
+    private static final float NEAR = 1;
+
+    @Test
+    public void testTriangleWithOneVertexBehindBecomesQuad() {
+        // Вершины x, y, d; вторая за ближней плоскостью
+        float[] in = {
+                0, 0, 3,
+                2, 0, -1,
+                0, 2, 3};
+        float[] out = new float[12];
+        int count = GraphicConveyor.clipPolygonNear(in, 3, NEAR, out);
+        Assertions.assertEquals(4, count);
+        float[] expected = {
+                0, 0, 3,
+                1, 0, 1,
+                1, 1, 1,
+                0, 2, 3};
+        Assertions.assertArrayEquals(expected, out, 1e-6f);
+    }
+
+    @Test
+    public void testTriangleWithTwoVerticesBehindStaysTriangle() {
+        float[] in = {
+                0, 0, 5,
+                4, 0, -3,
+                0, 4, -3};
+        float[] out = new float[12];
+        int count = GraphicConveyor.clipPolygonNear(in, 3, NEAR, out);
+        Assertions.assertEquals(3, count);
+        for (int k = 0; k < count; k++) {
+            Assertions.assertTrue(out[k * 3 + 2] >= NEAR);
+        }
+        // Точки на плоскости d = 1 лежат на половине рёбер от d = 5 до d = -3
+        Assertions.assertArrayEquals(new float[]{0, 0, 5, 2, 0, 1, 0, 2, 1}, Arrays.copyOf(out, 9), 1e-6f);
+    }
+
+    @Test
+    public void testPolygonFullyInFrontOrBehind() {
+        float[] in = {0, 0, 2, 1, 0, 2, 1, 1, 2, 0, 1, 2};
+        float[] out = new float[15];
+        Assertions.assertEquals(4, GraphicConveyor.clipPolygonNear(in, 4, NEAR, out));
+        Assertions.assertArrayEquals(in, Arrays.copyOf(out, 12));
+        float[] behind = {0, 0, 0.5f, 1, 0, 0.2f, 1, 1, -4};
+        Assertions.assertEquals(0, GraphicConveyor.clipPolygonNear(behind, 3, NEAR, out));
+    }
+
+    @Test
+    public void testSegmentNear() {
+        float[] out = new float[6];
+        Assertions.assertFalse(GraphicConveyor.clipSegmentNear(0, 0, 0.5f, 1, 1, -2, NEAR, out));
+        Assertions.assertTrue(GraphicConveyor.clipSegmentNear(0, 0, 3, 4, 2, -1, NEAR, out));
+        Assertions.assertArrayEquals(new float[]{0, 0, 3, 2, 1, 1}, out, 1e-6f);
+        Assertions.assertTrue(GraphicConveyor.clipSegmentNear(4, 2, -1, 0, 0, 3, NEAR, out));
+        Assertions.assertArrayEquals(new float[]{2, 1, 1, 0, 0, 3}, out, 1e-6f);
+    }
+
+    @Test
+    public void testSegmentRect() {
+        float[] out = {-10, 5, 30, 5};
+        Assertions.assertTrue(GraphicConveyor.clipSegmentRect(out, 0, 0, 20, 10));
+        Assertions.assertArrayEquals(new float[]{0, 5, 20, 5}, out, 1e-6f);
+
+        out = new float[]{-10, -10, -1, 50};
+        Assertions.assertFalse(GraphicConveyor.clipSegmentRect(out, 0, 0, 20, 10));
+        out = new float[]{5, 20, 5, 30};
+        Assertions.assertFalse(GraphicConveyor.clipSegmentRect(out, 0, 0, 20, 10));
+    }
+
+    // Отсечённый отрезок лежит на исходном и внутри прямоугольника, а его концы совпадают
+    // с крайними точками исходного отрезка внутри прямоугольника, найденными перебором
+    @Test
+    public void testSegmentRectMatchesSampling() {
+        Random random = new Random(9);
+        for (int i = 0; i < 2000; i++) {
+            float[] segment = {random.nextFloat() * 60 - 20, random.nextFloat() * 60 - 20,
+                    random.nextFloat() * 60 - 20, random.nextFloat() * 60 - 20};
+            float first = -1;
+            float last = -1;
+            int steps = 4000;
+            for (int s = 0; s <= steps; s++) {
+                float t = (float) s / steps;
+                float x = segment[0] + (segment[2] - segment[0]) * t;
+                float y = segment[1] + (segment[3] - segment[1]) * t;
+                if (x >= 0 && x <= 20 && y >= 0 && y <= 10) {
+                    if (first < 0) first = t;
+                    last = t;
+                }
+            }
+            float[] out = segment.clone();
+            boolean kept = GraphicConveyor.clipSegmentRect(out, 0, 0, 20, 10);
+            if (first >= 0) {
+                Assertions.assertTrue(kept);
+                float tolerance = 0.05f;
+                Assertions.assertEquals(segment[0] + (segment[2] - segment[0]) * first, out[0], tolerance);
+                Assertions.assertEquals(segment[1] + (segment[3] - segment[1]) * first, out[1], tolerance);
+                Assertions.assertEquals(segment[0] + (segment[2] - segment[0]) * last, out[2], tolerance);
+                Assertions.assertEquals(segment[1] + (segment[3] - segment[1]) * last, out[3], tolerance);
+            }
+            if (kept) {
+                for (int k = 0; k < 4; k += 2) {
+                    Assertions.assertTrue(out[k] >= -1e-3f && out[k] <= 20 + 1e-3f);
+                    Assertions.assertTrue(out[k + 1] >= -1e-3f && out[k + 1] <= 10 + 1e-3f);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class ProjectedVerticesTest {
+
+    // Проекция всех вершин за один проход совпадает с поштучным путём
+    // multiplyMatrix4ByVector3 + vertexToPoint, в том числе при делении работы по пулу
+    @Test
+    public void testMatchesPerVertexPipeline() {
+        Camera camera = new Camera(new Vector3f(3, 2, 40), new Vector3f(0, 0, 0), 60, 1.5f, 0.1f, 200);
+        Matrix4f mvp = camera.getViewProjectionMatrix();
+        Random random = new Random(21);
+        int count = 120_000;
+        float[] positions = new float[count * 3];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextFloat() * 20 - 10;
+        }
+        int width = 900;
+        int height = 600;
+
+        ProjectedVertices sequential = new ProjectedVertices();
+        sequential.project(positions, count, mvp, width, height, null);
+        ProjectedVertices parallel = new ProjectedVertices();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallel.project(positions, count, mvp, width, height, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertEquals(count, sequential.size());
+        for (int i = 0; i < count; i += 7) {
+            Vector3f vertex = new Vector3f(positions[3 * i], positions[3 * i + 1], positions[3 * i + 2]);
+            Vector2f expected = GraphicConveyor.vertexToPoint(
+                    GraphicConveyor.multiplyMatrix4ByVector3(mvp, vertex), width, height);
+            float w = vertex.x * mvp.get(0, 3) + vertex.y * mvp.get(1, 3) + vertex.z * mvp.get(2, 3) + mvp.get(3, 3);
+            float tolerance = 1e-3f * Math.max(1, Math.abs(expected.x) + Math.abs(expected.y));
+            Assertions.assertEquals(expected.x, sequential.getX(i), tolerance);
+            Assertions.assertEquals(expected.y, sequential.getY(i), tolerance);
+            Assertions.assertEquals(GraphicConveyor.viewDepth(w), sequential.getDepth(i), 1e-4f);
+        }
+        float[] a = sequential.getData();
+        float[] b = parallel.getData();
+        for (int i = 0; i < count * ProjectedVertices.STRIDE; i++) {
+            Assertions.assertEquals(a[i], b[i]);
+        }
+    }
+
+    @Test
+    public void testBufferReusedForSmallerModel() {
+        Matrix4f mvp = Matrix4f.identity();
+        ProjectedVertices projection = new ProjectedVertices();
+        projection.project(new float[300], 100, mvp, 10, 10, null);
+        float[] data = projection.getData();
+        projection.project(new float[30], 10, mvp, 10, 10, null);
+        Assertions.assertSame(data, projection.getData());
+        Assertions.assertEquals(10, projection.size());
+    }
+}
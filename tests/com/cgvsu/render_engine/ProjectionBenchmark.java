@@ -0,0 +1,45 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+
+import java.util.Random;
+
+// Сравнение скалярной и векторной проекции на одном потоке.
+// Запуск: java --add-modules jdk.incubator.vector ... com.cgvsu.render_engine.ProjectionBenchmark [вершин]
+public class ProjectionBenchmark {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        ProjectionKernel vector = ProjectedVertices.vectorKernel();
+        if (vector == null) {
+            System.out.println("jdk.incubator.vector недоступен, нужен --add-modules jdk.incubator.vector");
+            return;
+        }
+        Random random = new Random(1);
+        float[] positions = new float[count * 3];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextFloat() * 4 - 2;
+        }
+        Matrix4f mvp = new Matrix4f(new float[][]{
+                {0.9f, 0.1f, 0.2f, 0.05f}, {-0.1f, 1.1f, 0.3f, 0.02f},
+                {0.2f, -0.3f, 0.8f, -1}, {0.5f, 0.4f, -3, 4}});
+        float[] dest = new float[count * ProjectedVertices.STRIDE];
+        float[] clip = new float[count * ProjectedVertices.CLIP_STRIDE];
+
+        // Первые прогоны — прогрев JIT
+        for (int round = 0; round < 15; round++) {
+            long scalar = time(ProjectedVertices.SCALAR, positions, mvp, dest, clip, count);
+            long simd = time(vector, positions, mvp, dest, clip, count);
+            if (round >= 10) {
+                System.out.printf("%d вершин: scalar %.2f ms, vector %.2f ms, x%.2f%n",
+                        count, scalar / 1e6, simd / 1e6, (double) scalar / simd);
+            }
+        }
+    }
+
+    private static long time(ProjectionKernel kernel, float[] positions, Matrix4f mvp,
+                             float[] dest, float[] clip, int count) {
+        long start = System.nanoTime();
+        kernel.project(positions, mvp, 1600, 900, dest, clip, 0, count);
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,50 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+class ProjectionKernelTest {
+
+    @Test
+    public void testVectorKernelMatchesScalar() {
+        ProjectionKernel vector = ProjectedVertices.vectorKernel();
+        // Без --add-modules jdk.incubator.vector сравнивать не с чем
+        Assumptions.assumeTrue(vector != null);
+
+        Random random = new Random(11);
+        // Не кратно ширине вектора, чтобы задеть скалярный хвост
+        int count = 1003;
+        float[] positions = new float[count * 3];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextFloat() * 6 - 3;
+        }
+        // Вершина с w = 0: деление пропускается в обоих вариантах
+        positions[30] = 0;
+        positions[31] = 0;
+        positions[32] = 0;
+        Matrix4f mvp = new Matrix4f(new float[][]{
+                {1.2f, 0.1f, 0.3f, 0.2f}, {-0.2f, 1.5f, 0.1f, -0.1f},
+                {0.3f, -0.4f, -1.0f, -1.0f}, {0.5f, 0.2f, -0.2f, 0}});
+
+        float[] expected = new float[count * ProjectedVertices.STRIDE];
+        float[] expectedClip = new float[count * ProjectedVertices.CLIP_STRIDE];
+        float[] actual = new float[count * ProjectedVertices.STRIDE];
+        float[] actualClip = new float[count * ProjectedVertices.CLIP_STRIDE];
+        ProjectedVertices.SCALAR.project(positions, mvp, 640, 480, expected, expectedClip, 0, count);
+        vector.project(positions, mvp, 640, 480, actual, actualClip, 0, count);
+        Assertions.assertArrayEquals(expected, actual);
+        Assertions.assertArrayEquals(expectedClip, actualClip);
+
+        // Диапазон с середины массива
+        Arrays.fill(actual, 0);
+        Arrays.fill(expected, 0);
+        ProjectedVertices.SCALAR.project(positions, mvp, 640, 480, expected, expectedClip, 7, 900);
+        vector.project(positions, mvp, 640, 480, actual, actualClip, 7, 900);
+        Assertions.assertArrayEquals(expected, actual);
+    }
+}
@@ -0,0 +1,98 @@
+package com.cgvsu.render_engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RasterizerTest {
+    private static final int FAR = 1;
+    private static final int NEAR = 2;
+    private static final int FIRST = 3;
+    private static final int SECOND = 4;
+
+    @Test
+    public void testNearerTriangleWinsInAnyOrder() {
+        // Глубина — обратная 1/d, поэтому больше значит ближе
+        for (boolean nearFirst : new boolean[]{false, true}) {
+            FrameBuffer fb = newFrameBuffer(40, 40);
+            if (nearFirst) {
+                Rasterizer.fillTriangle(fb, 10, 0, 0.5f, 40, 0, 0.5f, 10, 30, 0.5f, NEAR);
+            }
+            Rasterizer.fillTriangle(fb, 0, 0, 0.2f, 30, 0, 0.2f, 0, 30, 0.2f, FAR);
+            if (!nearFirst) {
+                Rasterizer.fillTriangle(fb, 10, 0, 0.5f, 40, 0, 0.5f, 10, 30, 0.5f, NEAR);
+            }
+
+            Assertions.assertEquals(NEAR, fb.getPixel(15, 5));
+            Assertions.assertEquals(FAR, fb.getPixel(3, 5));
+            Assertions.assertEquals(NEAR, fb.getPixel(35, 2));
+            Assertions.assertEquals(0, fb.getPixel(35, 35));
+        }
+    }
+
+    @Test
+    public void testDepthIsInterpolatedAcrossTriangle() {
+        // Наклонный треугольник пересекает плоский: слева ближе плоский, справа наклонный
+        FrameBuffer fb = newFrameBuffer(40, 10);
+        Rasterizer.fillTriangle(fb, 0, 0, 0.5f, 40, 0, 0.5f, 0, 40, 0.5f, FAR);
+        Rasterizer.fillTriangle(fb, 0, 0, 0.1f, 40, 0, 0.9f, 40, 40, 0.9f, NEAR);
+        Assertions.assertEquals(FAR, fb.getPixel(12, 1));
+        Assertions.assertEquals(NEAR, fb.getPixel(30, 1));
+    }
+
+    @Test
+    public void testSharedDiagonalThroughPixelCenters() {
+        // Диагональ x = y проходит через центры пикселей: их покрывают оба треугольника
+        checkSharedEdge(0, 0, 16, 0, 16, 16, 0, 16);
+    }
+
+    @Test
+    public void testSharedEdgeOffPixelCenters() {
+        checkSharedEdge(1.3f, 0.7f, 27.9f, 3.1f, 24.2f, 19.6f, 2.4f, 15.2f);
+    }
+
+    // Выпуклый четырёхугольник a b c d делится диагональю a c на два треугольника с одной
+    // глубиной. Внутри не должно остаться пустых пикселей, а второй треугольник не должен
+    // перекрашивать пиксели первого: при равной глубине тест z > depth их не пропускает
+    private static void checkSharedEdge(float ax, float ay, float bx, float by,
+                                        float cx, float cy, float dx, float dy) {
+        FrameBuffer both = newFrameBuffer(32, 24);
+        Rasterizer.fillTriangle(both, ax, ay, 0.5f, bx, by, 0.5f, cx, cy, 0.5f, FIRST);
+        Rasterizer.fillTriangle(both, ax, ay, 0.5f, cx, cy, 0.5f, dx, dy, 0.5f, SECOND);
+        FrameBuffer firstOnly = newFrameBuffer(32, 24);
+        Rasterizer.fillTriangle(firstOnly, ax, ay, 0.5f, bx, by, 0.5f, cx, cy, 0.5f, FIRST);
+
+        float[] quad = {ax, ay, bx, by, cx, cy, dx, dy};
+        int interior = 0;
+        for (int y = 0; y < both.getHeight(); y++) {
+            for (int x = 0; x < both.getWidth(); x++) {
+                int pixel = both.getPixel(x, y);
+                Assertions.assertEquals(firstOnly.getPixel(x, y) == FIRST, pixel == FIRST,
+                        "pixel " + x + ", " + y);
+                if (strictlyInside(quad, x + 0.5f, y + 0.5f)) {
+                    Assertions.assertNotEquals(0, pixel, "gap at " + x + ", " + y);
+                    interior++;
+                }
+            }
+        }
+        Assertions.assertTrue(interior > 100);
+    }
+
+    private static boolean strictlyInside(float[] quad, float px, float py) {
+        for (int i = 0; i < 4; i++) {
+            float x0 = quad[2 * i], y0 = quad[2 * i + 1];
+            float x1 = quad[(2 * i + 2) % 8], y1 = quad[(2 * i + 3) % 8];
+            if ((x1 - x0) * (py - y0) - (y1 - y0) * (px - x0) <= 1e-3f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static FrameBuffer newFrameBuffer(int width, int height) {
+        FrameBuffer fb = new FrameBuffer();
+        fb.resize(width, height);
+        fb.clear(0);
+        fb.clearDepth();
+        return fb;
+    }
+}
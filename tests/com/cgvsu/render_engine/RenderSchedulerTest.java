@@ -0,0 +1,74 @@
+package com.cgvsu.render_engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RenderSchedulerTest {
+    private int renders;
+    private int starts;
+    private int stops;
+
+    private RenderScheduler newScheduler() {
+        return new RenderScheduler(() -> renders++, () -> starts++, () -> stops++);
+    }
+
+    @Test
+    public void testRequestsBetweenPulsesCoalesce() {
+        RenderScheduler scheduler = newScheduler();
+        scheduler.requestRender();
+        scheduler.requestRender();
+        scheduler.requestRender();
+        Assertions.assertEquals(1, starts);
+        Assertions.assertEquals(0, renders);
+        Assertions.assertTrue(scheduler.isDirty());
+
+        scheduler.pulse();
+        Assertions.assertEquals(1, renders);
+        Assertions.assertFalse(scheduler.isDirty());
+
+        scheduler.requestRender();
+        scheduler.requestRender();
+        scheduler.pulse();
+        Assertions.assertEquals(2, renders);
+        Assertions.assertEquals(1, starts);
+    }
+
+    @Test
+    public void testIdlePulseStopsTimer() {
+        RenderScheduler scheduler = newScheduler();
+        scheduler.requestRender();
+        scheduler.pulse();
+        scheduler.pulse();
+        Assertions.assertEquals(1, renders);
+        Assertions.assertEquals(1, stops);
+
+        // Следующий запрос снова запускает таймер
+        scheduler.requestRender();
+        Assertions.assertEquals(2, starts);
+        scheduler.pulse();
+        Assertions.assertEquals(2, renders);
+    }
+
+    @Test
+    public void testRequestDuringRenderSchedulesAnotherFrame() {
+        RenderScheduler[] holder = new RenderScheduler[1];
+        holder[0] = new RenderScheduler(() -> {
+            if (renders++ == 0) {
+                holder[0].requestRender();
+            }
+        }, () -> starts++, () -> stops++);
+        holder[0].requestRender();
+        holder[0].pulse();
+        Assertions.assertTrue(holder[0].isDirty());
+        holder[0].pulse();
+        holder[0].pulse();
+        Assertions.assertEquals(2, renders);
+        Assertions.assertEquals(1, starts);
+        Assertions.assertEquals(1, stops);
+    }
+
+    @Test
+    public void testRejectsNullRenderer() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RenderScheduler(null));
+    }
+}
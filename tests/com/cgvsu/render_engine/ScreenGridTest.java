@@ -0,0 +1,52 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+class ScreenGridTest {
+
+    @Test
+    public void testQueriesMatchBruteForce() {
+        Random random = new Random(7);
+        int width = 317;
+        int height = 211;
+        int count = 20000;
+        float[] positions = new float[count * 3];
+        for (int v = 0; v < count; v++) {
+            positions[v * 3] = random.nextFloat() * 2.4f - 1.2f;
+            positions[v * 3 + 1] = random.nextFloat() * 2.4f - 1.2f;
+            positions[v * 3 + 2] = random.nextFloat() * 4 - 3;
+        }
+        // Ортографическая проекция с w = -1: d = 1 для всех вершин
+        Matrix4f mvp = new Matrix4f(new float[][]{
+                {1, 0, 0, 0}, {0, 1, 0, 0}, {0, 0, 1, 0}, {0, 0, 0, -1}});
+        ProjectedVertices projection = new ProjectedVertices();
+        projection.project(positions, count, mvp, width, height, null);
+        ScreenGrid grid = new ScreenGrid();
+        grid.build(projection, width, height, 0.1f);
+
+        BitSet rect = new BitSet();
+        grid.queryRect(250, 20, 37.5f, 180, rect);
+        float[] lasso = {20, 20, 300, 40, 150, 100, 290, 190, 10, 200, 60, 110};
+        BitSet lassoResult = new BitSet();
+        grid.queryLasso(lasso, 6, lassoResult);
+
+        BitSet expectedRect = new BitSet();
+        BitSet expectedLasso = new BitSet();
+        for (int v = 0; v < count; v++) {
+            float x = projection.getX(v);
+            float y = projection.getY(v);
+            if (x < 0 || x >= width || y < 0 || y >= height) continue;
+            if (x >= 37.5f && x <= 250 && y >= 20 && y <= 180) expectedRect.set(v);
+            if (ScreenGrid.contains(lasso, 6, x, y)) expectedLasso.set(v);
+        }
+        Assertions.assertFalse(expectedRect.isEmpty());
+        Assertions.assertFalse(expectedLasso.isEmpty());
+        Assertions.assertEquals(expectedRect, rect);
+        Assertions.assertEquals(expectedLasso, lassoResult);
+    }
+}
@@ -0,0 +1,89 @@
+package com.cgvsu.render_engine;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class TileRasterizerTest {
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testParallelOutputMatchesDirectRasterization() {
+        Random random = new Random(42);
+        PrimitiveBuffer primitives = new PrimitiveBuffer();
+        FrameBuffer direct = newFrameBuffer();
+
+        for (int i = 0; i < 2000; i++) {
+            int color = random.nextInt();
+            if (random.nextBoolean()) {
+                float[] v = new float[9];
+                for (int k = 0; k < 9; k++) {
+                    v[k] = k % 3 == 2 ? random.nextFloat() : random.nextFloat() * 400 - 50;
+                }
+                primitives.addTriangle(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7], v[8], color);
+                Rasterizer.fillTriangle(direct, v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7], v[8], color);
+            } else {
+                float x0 = random.nextFloat() * 1000 - 300;
+                float y0 = random.nextFloat() * 1000 - 300;
+                float x1 = random.nextFloat() * 300;
+                float y1 = random.nextFloat() * 200;
+                int thickness = 1 + random.nextInt(4);
+                primitives.addLine(x0, y0, x1, y1, color, thickness);
+                Rasterizer.drawLine(direct, x0, y0, x1, y1, color, thickness);
+            }
+        }
+
+        FrameBuffer sequential = newFrameBuffer();
+        new TileRasterizer().execute(sequential, primitives, null);
+        FrameBuffer parallel = newFrameBuffer();
+        new TileRasterizer().execute(parallel, primitives, pool);
+
+        Assertions.assertArrayEquals(direct.getColorBuffer(), sequential.getColorBuffer());
+        Assertions.assertArrayEquals(direct.getColorBuffer(), parallel.getColorBuffer());
+    }
+
+    @Test
+    public void testNearerTriangleWins() {
+        FrameBuffer fb = newFrameBuffer();
+        Rasterizer.fillTriangle(fb, 0, 0, 0.5f, 100, 0, 0.5f, 0, 100, 0.5f, 1);
+        Rasterizer.fillTriangle(fb, 0, 0, 0.1f, 100, 0, 0.1f, 0, 100, 0.1f, 2);
+        Assertions.assertEquals(1, fb.getPixel(10, 10));
+    }
+
+    @Test
+    public void testIdBufferKeepsNearestPrimitive() {
+        FrameBuffer fb = newFrameBuffer();
+        fb.setIdBufferEnabled(true);
+        PrimitiveBuffer primitives = new PrimitiveBuffer();
+        primitives.addTriangle(0, 0, 0.5f, 100, 0, 0.5f, 0, 100, 0.5f, 1, 7);
+        primitives.addTriangle(0, 0, 0.1f, 100, 0, 0.1f, 0, 100, 0.1f, 2, 9);
+        primitives.addLine(200, 10, 250, 10, 3, 1, 11);
+        new TileRasterizer().execute(fb, primitives, pool);
+
+        Assertions.assertEquals(7, fb.getId(10, 10));
+        Assertions.assertEquals(11, fb.getId(220, 10));
+        Assertions.assertEquals(0, fb.getId(250, 150));
+    }
+
+    private static FrameBuffer newFrameBuffer() {
+        FrameBuffer fb = new FrameBuffer();
+        fb.resize(301, 197);
+        fb.clear(0);
+        fb.clearDepth();
+        return fb;
+    }
+}